@@ -0,0 +1,25 @@
+package ru.practicum.mainservice.configuration;
+
+import org.hibernate.dialect.PostgreSQL10Dialect;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registers the functions used by the public events search. The full-text ones render
+ * {@code event_search_vector(title, annotation, description)}, the same expression the
+ * {@code events_search_idx} GIN index is built on, so matches are answered from the index.
+ * {@code distance_km} is the great-circle distance between two (lat, lon) points.
+ */
+public class EwmPostgreSQLDialect extends PostgreSQL10Dialect {
+
+    public EwmPostgreSQLDialect() {
+        super();
+        registerFunction("fts_match", new SQLFunctionTemplate(StandardBasicTypes.BOOLEAN,
+                "event_search_vector(?1, ?2, ?3) @@ to_tsquery('simple', ?4)"));
+        registerFunction("fts_rank", new SQLFunctionTemplate(StandardBasicTypes.FLOAT,
+                "ts_rank(event_search_vector(?1, ?2, ?3), to_tsquery('simple', ?4))"));
+        registerFunction("distance_km", new SQLFunctionTemplate(StandardBasicTypes.DOUBLE,
+                "(6371 * acos(least(1, greatest(-1, cos(radians(?1)) * cos(radians(?3)) * cos(radians(?4) - radians(?2)) "
+                        + "+ sin(radians(?1)) * sin(radians(?3))))))"));
+    }
+}
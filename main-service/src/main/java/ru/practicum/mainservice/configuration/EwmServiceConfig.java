@@ -1,9 +1,13 @@
 package ru.practicum.mainservice.configuration;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.*;
-import ru.practicum.client.StatClient;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import ru.practicum.client.*;
+
+import java.time.Duration;
 
 @Configuration
 public class EwmServiceConfig {
@@ -11,8 +15,93 @@ public class EwmServiceConfig {
     @Value("${stats-server.url}")
     private String serverUrl;
 
+    @Value("${stats-client.async.enabled:false}")
+    private boolean asyncReporting;
+
+    @Value("${stats-client.async.capacity:10000}")
+    private int asyncCapacity;
+
+    @Value("${stats-client.async.batch-size:200}")
+    private int asyncBatchSize;
+
+    @Value("${stats-client.async.linger-ms:500}")
+    private long asyncLingerMs;
+
+    @Value("${stats-client.async.overflow-policy:DROP}")
+    private AsyncReportingSettings.OverflowPolicy asyncOverflowPolicy;
+
+    @Value("${stats-client.async.block-timeout-ms:50}")
+    private long asyncBlockTimeoutMs;
+
+    @Value("${stats-client.cache.enabled:false}")
+    private boolean statsCache;
+
+    @Value("${stats-client.cache.ttl-ms:1000}")
+    private long statsCacheTtlMs;
+
+    @Value("${stats-client.cache.maximum-size:10000}")
+    private long statsCacheMaximumSize;
+
+    @Value("${stats-client.resilience.enabled:true}")
+    private boolean resilience;
+
+    @Value("${stats-client.resilience.connect-timeout-ms:1000}")
+    private long resilienceConnectTimeoutMs;
+
+    @Value("${stats-client.resilience.read-timeout-ms:2000}")
+    private long resilienceReadTimeoutMs;
+
+    @Value("${stats-client.resilience.failure-threshold:5}")
+    private int resilienceFailureThreshold;
+
+    @Value("${stats-client.resilience.open-duration-ms:10000}")
+    private long resilienceOpenDurationMs;
+
+    @Value("${enrichment.pool-size:8}")
+    private int enrichmentPoolSize;
+
+    @Value("${enrichment.queue-capacity:100}")
+    private int enrichmentQueueCapacity;
+
+    @Bean
+    public ThreadPoolTaskExecutor enrichmentExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(enrichmentPoolSize);
+        executor.setMaxPoolSize(enrichmentPoolSize);
+        executor.setQueueCapacity(enrichmentQueueCapacity);
+        executor.setThreadNamePrefix("enrichment-");
+        executor.setDaemon(true);
+
+        return executor;
+    }
+
     @Bean
-    public StatClient statClient() {
-        return new StatClient(serverUrl, new RestTemplateBuilder());
+    public StatClient statClient(MeterRegistry meterRegistry) {
+        StatClient statClient = new StatClient(serverUrl, new RestTemplateBuilder());
+
+        if (asyncReporting) {
+            statClient.enableAsyncReporting(AsyncReportingSettings.builder()
+                    .capacity(asyncCapacity)
+                    .batchSize(asyncBatchSize)
+                    .lingerMs(asyncLingerMs)
+                    .overflowPolicy(asyncOverflowPolicy)
+                    .blockTimeoutMs(asyncBlockTimeoutMs)
+                    .build(), meterRegistry);
+        }
+
+        if (resilience) {
+            statClient.enableResilience(ResilienceSettings.builder()
+                    .connectTimeout(Duration.ofMillis(resilienceConnectTimeoutMs))
+                    .readTimeout(Duration.ofMillis(resilienceReadTimeoutMs))
+                    .failureThreshold(resilienceFailureThreshold)
+                    .openDuration(Duration.ofMillis(resilienceOpenDurationMs))
+                    .build(), meterRegistry);
+        }
+
+        if (statsCache) {
+            statClient.enableStatsCache(Duration.ofMillis(statsCacheTtlMs), statsCacheMaximumSize, meterRegistry);
+        }
+
+        return statClient;
     }
 }
@@ -5,6 +5,7 @@ import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.*;
 import org.springframework.web.bind.*;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.client.StatServerConnectException;
 import ru.practicum.mainservice.dto.error.ErrorResponseDto;
 import ru.practicum.mainservice.exception.*;
 import ru.practicum.mainservice.mapper.DateTimeMapper;
@@ -57,4 +58,18 @@ public class ErrorHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                 .body(errorResponseDto);
     }
+
+    @ExceptionHandler({StatServerConnectException.class})
+    public ResponseEntity<ErrorResponseDto> statServerConnectExceptionHandler(RuntimeException e) {
+        log.error(e.getMessage());
+        ErrorResponseDto errorResponseDto = ErrorResponseDto.builder()
+                .status("SERVICE_UNAVAILABLE")
+                .reason("The statistics service is unavailable.")
+                .message(e.getMessage())
+                .timestamp(DateTimeMapper.fromLocalDateTime(LocalDateTime.now()))
+                .build();
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(errorResponseDto);
+    }
 }
@@ -1,10 +1,13 @@
 package ru.practicum.mainservice.controller.admin;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.mainservice.dto.event.*;
 import ru.practicum.mainservice.model.EventState;
+import ru.practicum.mainservice.pagination.KeysetCursor;
 import ru.practicum.mainservice.service.EventService;
 
 import javax.validation.Valid;
@@ -26,13 +29,17 @@ public class EventControllerAdminApi {
     }
 
     @GetMapping("/events")
-    public List<EventFullDto> getEventsAdminApi(@RequestParam(defaultValue = "") List<Long> users,
-                                                @RequestParam(defaultValue = "") List<EventState> states,
-                                                @RequestParam(defaultValue = "") List<Integer> categories,
-                                                @RequestParam(required = false) LocalDateTime rangeStart,
-                                                @RequestParam(required = false) LocalDateTime rangeEnd,
-                                                @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                                @RequestParam(defaultValue = "10") @Positive int size) {
-        return eventService.getEventsAdminApi(users, states, categories, rangeStart, rangeEnd, from, size);
+    public ResponseEntity<List<EventFullDto>> getEventsAdminApi(@RequestParam(defaultValue = "") List<Long> users,
+                                                                @RequestParam(defaultValue = "") List<EventState> states,
+                                                                @RequestParam(defaultValue = "") List<Integer> categories,
+                                                                @RequestParam(required = false) LocalDateTime rangeStart,
+                                                                @RequestParam(required = false) LocalDateTime rangeEnd,
+                                                                @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+                                                                @RequestParam(defaultValue = "10") @Positive int size,
+                                                                @RequestParam(required = false) String cursor) {
+        Slice<EventFullDto> events = eventService.getEventsAdminApi(users, states, categories, rangeStart, rangeEnd,
+                from, size, KeysetCursor.decode(cursor));
+
+        return KeysetCursor.withNextCursor(events, event -> KeysetCursor.of(event.getId()));
     }
 }
@@ -1,10 +1,12 @@
 package ru.practicum.mainservice.controller.admin;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.HttpStatus;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.*;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.mainservice.dto.user.UserFullDto;
+import ru.practicum.mainservice.pagination.KeysetCursor;
 import ru.practicum.mainservice.service.UserService;
 
 import javax.validation.Valid;
@@ -25,10 +27,13 @@ public class UserControllerAdminApi {
     }
 
     @GetMapping("/users")
-    public List<UserFullDto> getUsers(@RequestParam(value = "ids", required = false) List<Long> ids,
-                                      @RequestParam(value = "from", required = false, defaultValue = "0") @PositiveOrZero Integer from,
-                                      @RequestParam(value = "size", required = false, defaultValue = "10") @Positive Integer size) {
-        return userService.getUsers(ids, from, size);
+    public ResponseEntity<List<UserFullDto>> getUsers(@RequestParam(value = "ids", required = false) List<Long> ids,
+                                                      @RequestParam(value = "from", required = false, defaultValue = "0") @PositiveOrZero Integer from,
+                                                      @RequestParam(value = "size", required = false, defaultValue = "10") @Positive Integer size,
+                                                      @RequestParam(value = "cursor", required = false) String cursor) {
+        Slice<UserFullDto> users = userService.getUsers(ids, from, size, KeysetCursor.decode(cursor));
+
+        return KeysetCursor.withNextCursor(users, user -> KeysetCursor.of(user.getId()));
     }
 
     @DeleteMapping("/users/{userId}")
@@ -1,9 +1,12 @@
 package ru.practicum.mainservice.controller.regular;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.mainservice.dto.compilation.CompilationDto;
+import ru.practicum.mainservice.pagination.KeysetCursor;
 import ru.practicum.mainservice.service.CompilationService;
 
 import javax.validation.constraints.*;
@@ -16,10 +19,14 @@ public class CompilationControllerPublicApi {
     private final CompilationService compilationService;
 
     @GetMapping("/compilations")
-    public List<CompilationDto> getCompilations(@RequestParam(required = false) Boolean pinned,
-                                                @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                                @RequestParam(defaultValue = "10") @Positive int size) {
-        return compilationService.getCompilations(pinned, from, size);
+    public ResponseEntity<List<CompilationDto>> getCompilations(@RequestParam(required = false) Boolean pinned,
+                                                                @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+                                                                @RequestParam(defaultValue = "10") @Positive int size,
+                                                                @RequestParam(required = false) String cursor) {
+        Slice<CompilationDto> compilations = compilationService.getCompilations(pinned, from, size,
+                KeysetCursor.decode(cursor));
+
+        return KeysetCursor.withNextCursor(compilations, compilation -> KeysetCursor.of(compilation.getId()));
     }
 
     @GetMapping("/compilations/{compId}")
@@ -2,11 +2,15 @@ package ru.practicum.mainservice.controller.regular;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.client.StatClient;
 import ru.practicum.dto.EndpointHitRequestDto;
 import ru.practicum.mainservice.dto.event.*;
+import ru.practicum.mainservice.dto.location.SearchAreaDto;
+import ru.practicum.mainservice.pagination.KeysetCursor;
 import ru.practicum.mainservice.service.EventService;
 
 import javax.servlet.http.HttpServletRequest;
@@ -25,19 +29,45 @@ public class EventControllerPublicApi {
     private String serviceName;
 
     @GetMapping("/events")
-    public List<EventShortDto> getEventsPublicApi(@RequestParam(defaultValue = "") String text,
-                                                  @RequestParam(defaultValue = "") List<Integer> categories,
-                                                  @RequestParam(required = false) Boolean paid,
-                                                  @RequestParam(required = false) LocalDateTime rangeStart,
-                                                  @RequestParam(required = false) LocalDateTime rangeEnd,
-                                                  @RequestParam(required = false) boolean onlyAvailable,
-                                                  @RequestParam(defaultValue = "") String sort,
-                                                  @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                                  @RequestParam(defaultValue = "10") @Positive int size,
-                                                  HttpServletRequest request) {
+    public ResponseEntity<List<EventShortDto>> getEventsPublicApi(@RequestParam(defaultValue = "") String text,
+                                                                  @RequestParam(defaultValue = "") List<Integer> categories,
+                                                                  @RequestParam(required = false) Boolean paid,
+                                                                  @RequestParam(required = false) LocalDateTime rangeStart,
+                                                                  @RequestParam(required = false) LocalDateTime rangeEnd,
+                                                                  @RequestParam(required = false) boolean onlyAvailable,
+                                                                  @RequestParam(defaultValue = "") String sort,
+                                                                  @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+                                                                  @RequestParam(defaultValue = "10") @Positive int size,
+                                                                  @RequestParam(required = false) String cursor,
+                                                                  @RequestParam(required = false) Double lat,
+                                                                  @RequestParam(required = false) Double lon,
+                                                                  @RequestParam(required = false) Double radius,
+                                                                  @RequestParam(required = false) Double minLat,
+                                                                  @RequestParam(required = false) Double minLon,
+                                                                  @RequestParam(required = false) Double maxLat,
+                                                                  @RequestParam(required = false) Double maxLon,
+                                                                  HttpServletRequest request) {
         sendRequestToStatService(request);
 
-        return eventService.getEventsPublicApi(text, categories, paid, rangeStart, rangeEnd, onlyAvailable, sort, from, size);
+        SearchAreaDto area = SearchAreaDto.builder()
+                .lat(lat)
+                .lon(lon)
+                .radius(radius)
+                .minLat(minLat)
+                .minLon(minLon)
+                .maxLat(maxLat)
+                .maxLon(maxLon)
+                .build();
+        Slice<EventShortDto> events = eventService.getEventsPublicApi(text, categories, paid, rangeStart, rangeEnd,
+                onlyAvailable, sort, from, size, KeysetCursor.decode(cursor),
+                area.hasCircle() || area.hasBox() ? area : null);
+
+        // No cursor for sorts it cannot continue: the next call would reject it
+        if (!EventSortOption.supportsCursor(sort, text)) {
+            return ResponseEntity.ok(events.getContent());
+        }
+
+        return KeysetCursor.withNextCursor(events, event -> KeysetCursor.of(event.getId(), event.getEventDate()));
     }
 
     @GetMapping("/events/{eventId}")
@@ -55,6 +85,6 @@ public class EventControllerPublicApi {
                 .timestamp(LocalDateTime.now())
                 .build();
 
-        statClient.addHit(endpointHitRequestDto);
+        statClient.reportHit(endpointHitRequestDto);
     }
 }
@@ -11,7 +11,7 @@ import javax.validation.constraints.*;
 import java.time.LocalDateTime;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class EventFullDto {
     @Positive
     private long id;
@@ -8,7 +8,7 @@ import ru.practicum.mainservice.dto.user.UserShortDto;
 import java.time.LocalDateTime;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class EventShortDto {
     private long id;
     private String annotation;
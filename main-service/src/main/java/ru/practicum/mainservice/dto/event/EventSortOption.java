@@ -1,6 +1,18 @@
 package ru.practicum.mainservice.dto.event;
 
+import ru.practicum.mainservice.repository.EventSearchExpressions;
+
 public enum EventSortOption {
     EVENT_DATE,
-    VIEWS
+    VIEWS,
+    RELEVANCE;
+
+    /**
+     * Whether a public search with this sort can be continued with a keyset cursor, which only holds the id and the
+     * event date. RELEVANCE without any words to match falls back to the default order by id.
+     */
+    public static boolean supportsCursor(String sort, String text) {
+        return !sort.equals(VIEWS.toString())
+                && !(sort.equals(RELEVANCE.toString()) && EventSearchExpressions.toTsQuery(text) != null);
+    }
 }
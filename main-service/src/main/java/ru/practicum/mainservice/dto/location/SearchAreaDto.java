@@ -0,0 +1,27 @@
+package ru.practicum.mainservice.dto.location;
+
+import lombok.*;
+
+/**
+ * Area filter of the public events search: a circle ({@code lat}, {@code lon}, {@code radius} in km)
+ * and/or a bounding box ({@code minLat}, {@code minLon}, {@code maxLat}, {@code maxLon}).
+ */
+@Data
+@Builder
+public class SearchAreaDto {
+    private Double lat;
+    private Double lon;
+    private Double radius;
+    private Double minLat;
+    private Double minLon;
+    private Double maxLat;
+    private Double maxLon;
+
+    public boolean hasCircle() {
+        return lat != null || lon != null || radius != null;
+    }
+
+    public boolean hasBox() {
+        return minLat != null || minLon != null || maxLat != null || maxLon != null;
+    }
+}
@@ -59,8 +59,10 @@ public class EventMapper {
                 .category(CategoryMapper.toCategoryDto(event.getCategory()))
                 .eventDate(event.getEventDate())
                 .initiator(UserMapper.toUserShortDto(event.getInitiator()))
+                .confirmedRequests((int) event.getConfirmedRequest())
                 .paid(event.isPaid())
                 .title(event.getTitle())
+                .views(event.getViews())
                 .build();
     }
 
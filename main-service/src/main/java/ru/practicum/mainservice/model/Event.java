@@ -15,7 +15,14 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(name = "events")
+@NamedEntityGraph(name = Event.WITH_CATEGORY_AND_INITIATOR, attributeNodes = {
+        @NamedAttributeNode("category"),
+        @NamedAttributeNode("initiator")
+})
 public class Event {
+    // Every event DTO renders the category and the initiator, so listings load them in the same query
+    public static final String WITH_CATEGORY_AND_INITIATOR = "Event.withCategoryAndInitiator";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -43,6 +50,10 @@ public class Event {
 
     private float lon;
 
+    // Grid cell of (lat, lon), generated by the database; see EventGeoSearch
+    @Column(name = "geo_cell", insertable = false, updatable = false)
+    private Long geoCell;
+
     private boolean paid;
 
     @Column(name = "participant_limit")
@@ -59,13 +70,11 @@ public class Event {
 
     private String title;
 
-    @Getter
-    @Setter
-    @Transient
+    // Maintained by set-based updates in EventRepository whenever a request is confirmed or leaves CONFIRMED
+    @Column(name = "confirmed_requests", insertable = false, updatable = false)
     private long confirmedRequest;
 
-    @Getter
-    @Setter
-    @Transient
+    // Synced from the stats server by EventViewsSynchronizer, so listings can be sorted by views in SQL
+    @Column(insertable = false, updatable = false)
     private long views;
 }
@@ -0,0 +1,91 @@
+package ru.practicum.mainservice.pagination;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.mainservice.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Opaque continuation token for keyset (seek) pagination.
+ * <p>
+ * Holds the sort key of the last row of the previous page, so the next page is read with
+ * {@code WHERE (key) > (last key)} instead of skipping {@code from} rows with OFFSET.
+ * The token is returned in the {@value #NEXT_CURSOR_HEADER} response header and passed back
+ * in the {@code cursor} request parameter; clients must treat it as an opaque string.
+ */
+@Getter
+@RequiredArgsConstructor
+public class KeysetCursor {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final String SEPARATOR = "|";
+
+    private final long id;
+
+    private final LocalDateTime eventDate;
+
+    public static KeysetCursor of(long id) {
+        return new KeysetCursor(id, null);
+    }
+
+    public static KeysetCursor of(long id, LocalDateTime eventDate) {
+        return new KeysetCursor(id, eventDate);
+    }
+
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                return of(Long.parseLong(raw));
+            }
+
+            return of(Long.parseLong(raw.substring(0, separator)),
+                    LocalDateTime.parse(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException(String.format("Cursor %s is invalid", token));
+        }
+    }
+
+    /**
+     * Wraps a slice into a response and, when there is a next slice, adds the cursor of its last element.
+     */
+    public static <T> ResponseEntity<List<T>> withNextCursor(Slice<T> slice, Function<T, KeysetCursor> keyOf) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        List<T> content = slice.getContent();
+
+        if (slice.hasNext()) {
+            response.header(NEXT_CURSOR_HEADER, keyOf.apply(content.get(content.size() - 1)).encode());
+        }
+
+        return response.body(content);
+    }
+
+    public String encode() {
+        String raw = eventDate == null ? String.valueOf(id) : id + SEPARATOR + eventDate;
+
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDateTime getEventDateOrThrow() {
+        if (eventDate == null) {
+            throw new BadRequestException("Cursor does not match sort=EVENT_DATE");
+        }
+
+        return eventDate;
+    }
+}
@@ -0,0 +1,27 @@
+package ru.practicum.mainservice.pagination;
+
+import com.querydsl.jpa.JPQLQuery;
+import lombok.experimental.UtilityClass;
+import org.springframework.data.domain.*;
+import org.springframework.data.jpa.repository.support.Querydsl;
+
+import java.util.List;
+
+@UtilityClass
+public class QuerydslSlices {
+
+    /**
+     * Reads one row more than the page size instead of running a separate {@code SELECT COUNT(*)}: the extra row
+     * only tells whether there is a next slice and is not returned.
+     */
+    public static <T> Slice<T> fetchSlice(Querydsl querydsl, JPQLQuery<T> query, Pageable pageable) {
+        querydsl.applySorting(pageable.getSort(), query);
+
+        List<T> content = query.offset(pageable.getOffset())
+                .limit(pageable.getPageSize() + 1L)
+                .fetch();
+        boolean hasNext = content.size() > pageable.getPageSize();
+
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+}
@@ -1,7 +1,13 @@
 package ru.practicum.mainservice.repository;
 
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.*;
+import org.springframework.data.jpa.repository.*;
 import ru.practicum.mainservice.model.Category;
 
+import javax.persistence.QueryHint;
+
 public interface CategoryRepository extends JpaRepository<Category, Integer> {
+
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    Slice<Category> findAllBy(Pageable pageable);
 }
@@ -1,9 +1,26 @@
 package ru.practicum.mainservice.repository;
 
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.*;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
 import ru.practicum.mainservice.model.Compilation;
 
+import java.util.*;
+
 public interface CompilationRepository extends JpaRepository<Compilation, Integer>,
-        QuerydslPredicateExecutor<Compilation> {
+        QuerydslPredicateExecutor<Compilation>, CompilationRepositoryCustom {
+
+    @Query("SELECT DISTINCT c FROM Compilation c " +
+            "LEFT JOIN FETCH c.events e " +
+            "LEFT JOIN FETCH e.category " +
+            "LEFT JOIN FETCH e.initiator " +
+            "WHERE c.id IN :ids " +
+            "ORDER BY c.id DESC")
+    List<Compilation> findAllWithEventsByIdIn(Collection<Integer> ids);
+
+    @Query("SELECT DISTINCT c FROM Compilation c " +
+            "LEFT JOIN FETCH c.events e " +
+            "LEFT JOIN FETCH e.category " +
+            "LEFT JOIN FETCH e.initiator " +
+            "WHERE c.id = :id")
+    Optional<Compilation> findWithEventsById(int id);
 }
@@ -0,0 +1,12 @@
+package ru.practicum.mainservice.repository;
+
+import com.querydsl.core.types.Predicate;
+import org.springframework.data.domain.*;
+
+public interface CompilationRepositoryCustom {
+    /**
+     * Selects a page of compilation ids only; the compilations themselves are then read with their events
+     * by {@link CompilationRepository#findAllWithEventsByIdIn}.
+     */
+    Slice<Integer> findIdSlice(Predicate where, Pageable pageable);
+}
@@ -0,0 +1,28 @@
+package ru.practicum.mainservice.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.*;
+import org.springframework.data.jpa.repository.support.Querydsl;
+import ru.practicum.mainservice.model.*;
+import ru.practicum.mainservice.pagination.QuerydslSlices;
+
+import javax.persistence.EntityManager;
+
+@RequiredArgsConstructor
+public class CompilationRepositoryImpl implements CompilationRepositoryCustom {
+    private static final QCompilation COMPILATION = QCompilation.compilation;
+
+    private final EntityManager entityManager;
+
+    @Override
+    public Slice<Integer> findIdSlice(Predicate where, Pageable pageable) {
+        return QuerydslSlices.fetchSlice(
+                new Querydsl(entityManager, new PathBuilder<>(Compilation.class, COMPILATION.getMetadata())),
+                new JPAQueryFactory(entityManager).select(COMPILATION.id)
+                        .from(COMPILATION)
+                        .where(where), pageable);
+    }
+}
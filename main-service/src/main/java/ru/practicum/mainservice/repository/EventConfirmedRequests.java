@@ -0,0 +1,7 @@
+package ru.practicum.mainservice.repository;
+
+public interface EventConfirmedRequests {
+    Long getId();
+
+    long getConfirmedRequests();
+}
@@ -0,0 +1,148 @@
+package ru.practicum.mainservice.repository;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.*;
+import lombok.experimental.UtilityClass;
+import ru.practicum.mainservice.dto.location.SearchAreaDto;
+import ru.practicum.mainservice.exception.BadRequestException;
+import ru.practicum.mainservice.model.QEvent;
+
+import java.util.*;
+
+/**
+ * Area predicates over {@code events.geo_cell}: the globe is cut into 0.1° cells numbered
+ * row by row, so the cells of a box form one contiguous id range per row and are read from a B-tree index.
+ * The exact box or distance check then runs only on the events of those cells.
+ * Must match the {@code geo_cell} expression in db/migration/V2__add_event_counters_and_search.sql.
+ */
+@UtilityClass
+public class EventGeoSearch {
+    private static final int CELLS_PER_DEGREE = 10;
+    private static final int ROWS = 1800;
+    private static final int COLUMNS = 3600;
+    private static final double KM_PER_DEGREE = 111.32;
+    // Above this many row ranges one range over whole rows is cheaper than a long OR of small ones
+    private static final int MAX_RANGES = 64;
+
+    public static Predicate within(SearchAreaDto area) {
+        BooleanBuilder where = new BooleanBuilder();
+
+        if (area.hasCircle()) {
+            if (area.getLat() == null || area.getLon() == null || area.getRadius() == null) {
+                throw new BadRequestException("lat, lon and radius must be set together");
+            }
+            checkLatitude(area.getLat());
+            checkLongitude(area.getLon());
+            if (area.getRadius() <= 0) {
+                throw new BadRequestException("radius must be positive");
+            }
+            where.and(withinRadius(area.getLat(), area.getLon(), area.getRadius()));
+        }
+
+        if (area.hasBox()) {
+            if (area.getMinLat() == null || area.getMinLon() == null || area.getMaxLat() == null
+                    || area.getMaxLon() == null) {
+                throw new BadRequestException("minLat, minLon, maxLat and maxLon must be set together");
+            }
+            checkLatitude(area.getMinLat());
+            checkLatitude(area.getMaxLat());
+            checkLongitude(area.getMinLon());
+            checkLongitude(area.getMaxLon());
+            if (area.getMinLat() > area.getMaxLat()) {
+                throw new BadRequestException("minLat must not be greater than maxLat");
+            }
+            where.and(withinBox(area.getMinLat(), area.getMinLon(), area.getMaxLat(), area.getMaxLon()));
+        }
+
+        return where;
+    }
+
+    private static Predicate withinRadius(double lat, double lon, double radiusKm) {
+        double latDelta = radiusKm / KM_PER_DEGREE;
+        double minLat = Math.max(-90, lat - latDelta);
+        double maxLat = Math.min(90, lat + latDelta);
+
+        double cos = Math.cos(Math.toRadians(Math.max(Math.abs(minLat), Math.abs(maxLat))));
+        double lonDelta = cos <= 0 ? 180 : radiusKm / (KM_PER_DEGREE * cos);
+
+        double minLon = -180;
+        double maxLon = 180;
+        if (lonDelta < 180) {
+            minLon = normalizeLongitude(lon - lonDelta);
+            maxLon = normalizeLongitude(lon + lonDelta);
+        }
+
+        NumberExpression<Double> distance = Expressions.numberTemplate(Double.class,
+                "function('distance_km', {0}, {1}, {2}, {3})", QEvent.event.lat, QEvent.event.lon, lat, lon);
+
+        return new BooleanBuilder(withinBox(minLat, minLon, maxLat, maxLon))
+                .and(distance.loe(radiusKm));
+    }
+
+    // minLon > maxLon means the box crosses the antimeridian
+    private static Predicate withinBox(double minLat, double minLon, double maxLat, double maxLon) {
+        List<int[]> columns = minLon <= maxLon
+                ? List.of(new int[]{column(minLon), column(maxLon)})
+                : List.of(new int[]{column(minLon), COLUMNS - 1}, new int[]{0, column(maxLon)});
+
+        BooleanBuilder byLatitude = new BooleanBuilder(QEvent.event.lat.between((float) minLat, (float) maxLat));
+        BooleanExpression byLongitude = minLon <= maxLon
+                ? QEvent.event.lon.between((float) minLon, (float) maxLon)
+                : QEvent.event.lon.goe((float) minLon).or(QEvent.event.lon.loe((float) maxLon));
+
+        return byLatitude.and(byCells(row(minLat), row(maxLat), columns))
+                .and(byLongitude);
+    }
+
+    private static Predicate byCells(int minRow, int maxRow, List<int[]> columns) {
+        // One cell of margin on every side absorbs float rounding differences between Java and Postgres
+        minRow = Math.max(0, minRow - 1);
+        maxRow = Math.min(ROWS - 1, maxRow + 1);
+
+        if ((maxRow - minRow + 1) * columns.size() > MAX_RANGES) {
+            return QEvent.event.geoCell.between((long) minRow * COLUMNS, (long) maxRow * COLUMNS + COLUMNS - 1);
+        }
+
+        BooleanBuilder cells = new BooleanBuilder();
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int[] range : columns) {
+                long first = (long) row * COLUMNS + Math.max(0, range[0] - 1);
+                long last = (long) row * COLUMNS + Math.min(COLUMNS - 1, range[1] + 1);
+                cells.or(QEvent.event.geoCell.between(first, last));
+            }
+        }
+
+        return cells;
+    }
+
+    private static int row(double lat) {
+        return Math.min(ROWS - 1, (int) Math.floor((lat + 90) * CELLS_PER_DEGREE));
+    }
+
+    private static int column(double lon) {
+        return Math.min(COLUMNS - 1, (int) Math.floor((lon + 180) * CELLS_PER_DEGREE));
+    }
+
+    private static double normalizeLongitude(double lon) {
+        if (lon < -180) {
+            return lon + 360;
+        }
+        if (lon > 180) {
+            return lon - 360;
+        }
+        return lon;
+    }
+
+    private static void checkLatitude(double lat) {
+        if (lat < -90 || lat > 90) {
+            throw new BadRequestException(String.format("Latitude %s is out of range [-90, 90]", lat));
+        }
+    }
+
+    private static void checkLongitude(double lon) {
+        if (lon < -180 || lon > 180) {
+            throw new BadRequestException(String.format("Longitude %s is out of range [-180, 180]", lon));
+        }
+    }
+}
@@ -1,19 +1,48 @@
 package ru.practicum.mainservice.repository;
 
-import org.springframework.data.domain.*;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.*;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
 import ru.practicum.mainservice.model.Event;
 
 import java.util.*;
 
-public interface EventRepository extends JpaRepository<Event, Long>, QuerydslPredicateExecutor<Event> {
+public interface EventRepository extends JpaRepository<Event, Long>, QuerydslPredicateExecutor<Event>,
+        EventRepositoryCustom {
 
     boolean existsByCategoryId(int catId);
 
-    Page<Event> findAllByInitiatorId(long userId, Pageable pageable);
+    @EntityGraph(Event.WITH_CATEGORY_AND_INITIATOR)
+    @Override
+    Optional<Event> findById(Long id);
 
+    @EntityGraph(Event.WITH_CATEGORY_AND_INITIATOR)
     Optional<Event> findByIdAndInitiatorId(long eventId, long userId);
 
+    @EntityGraph(Event.WITH_CATEGORY_AND_INITIATOR)
     Set<Event> findAllByIdIn(Set<Long> ids);
+
+    @Query("SELECT e.id AS id, e.confirmedRequest AS confirmedRequests FROM Event e WHERE e.id IN :ids")
+    List<EventConfirmedRequests> findConfirmedRequestsByIdIn(Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Event e SET e.confirmedRequest = e.confirmedRequest + :delta WHERE e.id = :eventId")
+    void addConfirmedRequests(long eventId, long delta);
+
+    /**
+     * Takes one place of the event if any is left. The check and the increment are a single statement,
+     * so concurrent requests cannot both take the last place; the row lock is held only until commit.
+     *
+     * @return 1 if a place was reserved, 0 if the participant limit is reached
+     */
+    @Modifying
+    @Query("UPDATE Event e SET e.confirmedRequest = e.confirmedRequest + 1 " +
+            "WHERE e.id = :eventId AND (e.participantLimit = 0 OR e.confirmedRequest < e.participantLimit)")
+    int reserveConfirmedRequest(long eventId);
+
+    @Modifying
+    @Query(value = "UPDATE events e SET confirmed_requests = e.confirmed_requests - r.confirmed " +
+            "FROM (SELECT event, COUNT(*) AS confirmed FROM requests " +
+            "WHERE requester = :userId AND status = 'CONFIRMED' GROUP BY event) r " +
+            "WHERE e.id = r.event", nativeQuery = true)
+    void subtractConfirmedRequestsOfRequester(long userId);
 }
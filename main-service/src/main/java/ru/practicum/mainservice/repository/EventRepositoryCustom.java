@@ -0,0 +1,23 @@
+package ru.practicum.mainservice.repository;
+
+import com.querydsl.core.types.Predicate;
+import org.springframework.data.domain.*;
+import ru.practicum.mainservice.dto.event.EventShortDto;
+import ru.practicum.mainservice.model.Event;
+
+import java.util.Map;
+
+public interface EventRepositoryCustom {
+    void updateViews(Map<Long, Long> viewsByEventId);
+
+    /**
+     * Reads a page of events with their category and initiator, without counting all matching rows.
+     */
+    Slice<Event> findSlice(Predicate where, Pageable pageable);
+
+    /**
+     * Reads a page of events straight into short DTOs: only the columns they render, with the category and
+     * initiator names joined in the same statement. {@code description} is never read.
+     */
+    Slice<EventShortDto> findShortDtos(Predicate where, Pageable pageable);
+}
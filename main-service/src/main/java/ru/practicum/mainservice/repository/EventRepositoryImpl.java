@@ -0,0 +1,86 @@
+package ru.practicum.mainservice.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.impl.*;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.*;
+import org.springframework.data.jpa.repository.support.Querydsl;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.mainservice.dto.category.CategoryDto;
+import ru.practicum.mainservice.dto.event.EventShortDto;
+import ru.practicum.mainservice.dto.user.UserShortDto;
+import ru.practicum.mainservice.model.*;
+import ru.practicum.mainservice.pagination.QuerydslSlices;
+
+import javax.persistence.EntityManager;
+import java.util.*;
+
+@RequiredArgsConstructor
+public class EventRepositoryImpl implements EventRepositoryCustom {
+    private static final QEvent EVENT = QEvent.event;
+    private static final QCategory CATEGORY = QCategory.category;
+    private static final QUser INITIATOR = QUser.user;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    @Override
+    public void updateViews(Map<Long, Long> viewsByEventId) {
+        List<Object[]> params = new ArrayList<>();
+        new TreeMap<>(viewsByEventId).forEach((id, views) -> params.add(new Object[]{views, id, views}));
+
+        jdbcTemplate.batchUpdate("UPDATE events SET views = ? WHERE id = ? AND views <> ?", params);
+    }
+
+    @Override
+    public Slice<Event> findSlice(Predicate where, Pageable pageable) {
+        return QuerydslSlices.fetchSlice(querydsl(), new JPAQueryFactory(entityManager).selectFrom(EVENT)
+                .leftJoin(EVENT.category)
+                .fetchJoin()
+                .leftJoin(EVENT.initiator)
+                .fetchJoin()
+                .where(where), pageable);
+    }
+
+    @Override
+    public Slice<EventShortDto> findShortDtos(Predicate where, Pageable pageable) {
+        JPAQuery<Tuple> query = new JPAQueryFactory(entityManager)
+                .select(EVENT.id, EVENT.annotation, CATEGORY.id, CATEGORY.name, EVENT.eventDate, INITIATOR.id,
+                        INITIATOR.name, EVENT.confirmedRequest, EVENT.paid, EVENT.title, EVENT.views)
+                .from(EVENT)
+                .join(EVENT.category, CATEGORY)
+                .join(EVENT.initiator, INITIATOR)
+                .where(where);
+
+        return QuerydslSlices.fetchSlice(querydsl(), query, pageable)
+                .map(this::toEventShortDto);
+    }
+
+    // Applies both property sorts and QSort (relevance) against the same "event" alias
+    private Querydsl querydsl() {
+        return new Querydsl(entityManager, new PathBuilder<>(Event.class, EVENT.getMetadata()));
+    }
+
+    private EventShortDto toEventShortDto(Tuple row) {
+        return EventShortDto.builder()
+                .id(row.get(EVENT.id))
+                .annotation(row.get(EVENT.annotation))
+                .category(CategoryDto.builder()
+                        .id(row.get(CATEGORY.id))
+                        .name(row.get(CATEGORY.name))
+                        .build())
+                .eventDate(row.get(EVENT.eventDate))
+                .initiator(UserShortDto.builder()
+                        .id(row.get(INITIATOR.id))
+                        .name(row.get(INITIATOR.name))
+                        .build())
+                .confirmedRequests(row.get(EVENT.confirmedRequest)
+                        .intValue())
+                .paid(row.get(EVENT.paid))
+                .title(row.get(EVENT.title))
+                .views(row.get(EVENT.views))
+                .build();
+    }
+}
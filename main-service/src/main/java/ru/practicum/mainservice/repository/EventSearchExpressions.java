@@ -0,0 +1,37 @@
+package ru.practicum.mainservice.repository;
+
+import com.querydsl.core.types.dsl.*;
+import lombok.experimental.UtilityClass;
+import ru.practicum.mainservice.model.QEvent;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+@UtilityClass
+public class EventSearchExpressions {
+
+    /**
+     * Turns free text into a prefix tsquery ({@code word1:* & word2:*}), so partial words still match.
+     * Returns null when the text has no searchable words.
+     */
+    public static String toTsQuery(String text) {
+        String query = Arrays.stream(text.toLowerCase(Locale.ROOT)
+                        .split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .map(word -> word + ":*")
+                .collect(Collectors.joining(" & "));
+
+        return query.isEmpty() ? null : query;
+    }
+
+    public static BooleanExpression matches(String tsQuery) {
+        return Expressions.booleanTemplate("function('fts_match', {0}, {1}, {2}, {3}) = true",
+                QEvent.event.title, QEvent.event.annotation, QEvent.event.description, tsQuery);
+    }
+
+    public static NumberExpression<Float> rank(String tsQuery) {
+        return Expressions.numberTemplate(Float.class, "function('fts_rank', {0}, {1}, {2}, {3})",
+                QEvent.event.title, QEvent.event.annotation, QEvent.event.description, tsQuery);
+    }
+}
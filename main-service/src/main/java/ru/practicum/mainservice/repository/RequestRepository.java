@@ -1,22 +1,18 @@
 package ru.practicum.mainservice.repository;
 
-import org.springframework.data.jpa.repository.*;
-import ru.practicum.mainservice.dto.request.RequestCountDto;
+import org.springframework.data.jpa.repository.JpaRepository;
 import ru.practicum.mainservice.model.*;
 
-import java.util.List;
+import java.util.*;
 
-public interface RequestRepository extends JpaRepository<Request, Long> {
+public interface RequestRepository extends JpaRepository<Request, Long>, RequestRepositoryCustom {
     List<Request> findAllByEventId(long eventId);
 
     List<Request> findAllByRequesterId(long userId);
 
-    List<Request> findAllByIdIn(List<Long> ids);
+    long countByEventIdAndIdIn(long eventId, Collection<Long> ids);
 
-    List<Request> findAllByEventIdInAndStatusEquals(List<Long> ids, RequestStatus status);
-
-    int countAllByEventIdAndStatusEquals(long eventId, RequestStatus status);
+    boolean existsByEventIdAndIdInAndStatusNot(long eventId, List<Long> ids, RequestStatus status);
 
-    @Query("SELECT new ru.practicum.mainservice.dto.request.RequestCountDto(r.event.id, COUNT(r)) FROM Request r WHERE r.event.id IN :ids AND r.status = :status GROUP BY r.event.id")
-    List<RequestCountDto> findAllConfirmedRequestsByEventIds(List<Long> ids, RequestStatus status);
+    List<Request> findAllByEventIdInAndStatusEquals(List<Long> ids, RequestStatus status);
 }
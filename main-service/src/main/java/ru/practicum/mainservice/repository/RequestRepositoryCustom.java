@@ -0,0 +1,21 @@
+package ru.practicum.mainservice.repository;
+
+import ru.practicum.mainservice.dto.request.RequestDto;
+
+import java.util.List;
+
+public interface RequestRepositoryCustom {
+    /**
+     * Locks the event row until commit, so moderation calls on one event run one after another and the
+     * statements that follow see what the previous call committed.
+     *
+     * @return the current number of confirmed requests of the event
+     */
+    long lockEventForModeration(long eventId);
+
+    void confirmPendingRequests(long eventId, List<Long> requestIds);
+
+    void rejectPendingRequests(long eventId, List<Long> requestIds);
+
+    List<RequestDto> findRequestDtosByEventIdAndIdIn(long eventId, List<Long> requestIds);
+}
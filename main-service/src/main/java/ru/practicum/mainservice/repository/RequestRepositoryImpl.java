@@ -0,0 +1,73 @@
+package ru.practicum.mainservice.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.*;
+import ru.practicum.mainservice.dto.request.RequestDto;
+import ru.practicum.mainservice.model.RequestStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class RequestRepositoryImpl implements RequestRepositoryCustom {
+    private static final String LOCK_EVENT = "SELECT confirmed_requests FROM events WHERE id = :eventId FOR UPDATE";
+
+    // Confirms pending requests in id order up to the places left (all of them when participant_limit is 0)
+    // and adds the number confirmed to the event counter, all in one statement. The event must already be
+    // locked by an earlier statement: only then does this statement's snapshot include requests confirmed by
+    // a concurrent moderation. The status check in the UPDATE is re-evaluated on the latest row version anyway.
+    private static final String CONFIRM_PENDING = "WITH event AS (" +
+            "    SELECT participant_limit, confirmed_requests FROM events WHERE id = :eventId" +
+            "), picked AS (" +
+            "    SELECT r.id FROM requests r" +
+            "    WHERE r.event = :eventId AND r.id IN (:ids) AND r.status = 'PENDING'" +
+            "    ORDER BY r.id" +
+            "    LIMIT (SELECT CASE WHEN participant_limit = 0 THEN NULL" +
+            "                       ELSE GREATEST(participant_limit - confirmed_requests, 0) END FROM event)" +
+            "), confirmed AS (" +
+            "    UPDATE requests SET status = 'CONFIRMED' WHERE id IN (SELECT id FROM picked) AND status = 'PENDING'" +
+            "    RETURNING id" +
+            ") " +
+            "UPDATE events SET confirmed_requests = confirmed_requests + (SELECT COUNT(*) FROM confirmed) " +
+            "WHERE id = :eventId";
+
+    private static final String REJECT_PENDING = "UPDATE requests SET status = 'REJECTED' " +
+            "WHERE event = :eventId AND id IN (:ids) AND status = 'PENDING'";
+
+    private static final String FIND_DTOS = "SELECT id, event, requester, created, status FROM requests " +
+            "WHERE event = :eventId AND id IN (:ids) ORDER BY id";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public long lockEventForModeration(long eventId) {
+        return jdbcTemplate.queryForObject(LOCK_EVENT, new MapSqlParameterSource("eventId", eventId), Long.class);
+    }
+
+    @Override
+    public void confirmPendingRequests(long eventId, List<Long> requestIds) {
+        jdbcTemplate.update(CONFIRM_PENDING, params(eventId, requestIds));
+    }
+
+    @Override
+    public void rejectPendingRequests(long eventId, List<Long> requestIds) {
+        jdbcTemplate.update(REJECT_PENDING, params(eventId, requestIds));
+    }
+
+    @Override
+    public List<RequestDto> findRequestDtosByEventIdAndIdIn(long eventId, List<Long> requestIds) {
+        return jdbcTemplate.query(FIND_DTOS, params(eventId, requestIds), (rs, rowNum) -> RequestDto.builder()
+                .id(rs.getLong("id"))
+                .event(rs.getLong("event"))
+                .requester(rs.getLong("requester"))
+                .created(rs.getObject("created", LocalDateTime.class))
+                .status(RequestStatus.valueOf(rs.getString("status")))
+                .build());
+    }
+
+    private static SqlParameterSource params(long eventId, List<Long> requestIds) {
+        return new MapSqlParameterSource()
+                .addValue("eventId", eventId)
+                .addValue("ids", requestIds);
+    }
+}
@@ -1,12 +1,9 @@
 package ru.practicum.mainservice.repository;
 
-import org.springframework.data.domain.*;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.querydsl.QuerydslPredicateExecutor;
 import ru.practicum.mainservice.model.User;
 
-import java.util.List;
-
-public interface UserRepository extends JpaRepository<User, Long> {
-
-    Page<User> findAllByIdIn(List<Long> ids, Pageable pageable);
+public interface UserRepository extends JpaRepository<User, Long>, QuerydslPredicateExecutor<User>,
+        UserRepositoryCustom {
 }
@@ -0,0 +1,9 @@
+package ru.practicum.mainservice.repository;
+
+import com.querydsl.core.types.Predicate;
+import org.springframework.data.domain.*;
+import ru.practicum.mainservice.model.User;
+
+public interface UserRepositoryCustom {
+    Slice<User> findSlice(Predicate where, Pageable pageable);
+}
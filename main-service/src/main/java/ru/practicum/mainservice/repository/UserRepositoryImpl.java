@@ -0,0 +1,26 @@
+package ru.practicum.mainservice.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.*;
+import org.springframework.data.jpa.repository.support.Querydsl;
+import ru.practicum.mainservice.model.*;
+import ru.practicum.mainservice.pagination.QuerydslSlices;
+
+import javax.persistence.EntityManager;
+
+@RequiredArgsConstructor
+public class UserRepositoryImpl implements UserRepositoryCustom {
+    private static final QUser USER = QUser.user;
+
+    private final EntityManager entityManager;
+
+    @Override
+    public Slice<User> findSlice(Predicate where, Pageable pageable) {
+        return QuerydslSlices.fetchSlice(new Querydsl(entityManager, new PathBuilder<>(User.class, USER.getMetadata())),
+                new JPAQueryFactory(entityManager).selectFrom(USER)
+                        .where(where), pageable);
+    }
+}
@@ -1,6 +1,8 @@
 package ru.practicum.mainservice.service;
 
+import org.springframework.data.domain.Slice;
 import ru.practicum.mainservice.dto.compilation.*;
+import ru.practicum.mainservice.pagination.KeysetCursor;
 
 import java.util.List;
 
@@ -11,7 +13,7 @@ public interface CompilationService {
 
     CompilationDto updateCompilation(int compId, UpdateCompilationRequestDto updateCompilationRequestDto);
 
-    List<CompilationDto> getCompilations(Boolean pinned, int from, int size);
+    Slice<CompilationDto> getCompilations(Boolean pinned, int from, int size, KeysetCursor cursor);
 
     CompilationDto getCompilationById(int compId);
 }
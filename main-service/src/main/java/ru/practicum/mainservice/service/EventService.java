@@ -1,7 +1,10 @@
 package ru.practicum.mainservice.service;
 
+import org.springframework.data.domain.Slice;
 import ru.practicum.mainservice.dto.event.*;
+import ru.practicum.mainservice.dto.location.SearchAreaDto;
 import ru.practicum.mainservice.model.EventState;
+import ru.practicum.mainservice.pagination.KeysetCursor;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -9,8 +12,9 @@ import java.util.List;
 public interface EventService {
     EventFullDto updateEventByEventId(long eventId, UpdateEventRequestDto updateEventRequestDto);
 
-    List<EventFullDto> getEventsAdminApi(List<Long> users, List<EventState> states, List<Integer> categories,
-                                         LocalDateTime rangeStart, LocalDateTime rangeEnd, int from, int size);
+    Slice<EventFullDto> getEventsAdminApi(List<Long> users, List<EventState> states, List<Integer> categories,
+                                         LocalDateTime rangeStart, LocalDateTime rangeEnd, int from, int size,
+                                         KeysetCursor cursor);
 
     EventFullDto addEvent(long userId, EventCreationDto eventCreationDto);
 
@@ -20,10 +24,10 @@ public interface EventService {
 
     EventFullDto updateEventByUserIdAndEventId(long userId, long eventId, UpdateEventRequestDto updateEventRequestDto);
 
-    List<EventShortDto> getEventsPublicApi(String text, List<Integer> categories, Boolean paid,
+    Slice<EventShortDto> getEventsPublicApi(String text, List<Integer> categories, Boolean paid,
                                            LocalDateTime rangeStart,
                                            LocalDateTime rangeEnd, boolean onlyAvailable, String sort, int from,
-                                           int size);
+                                           int size, KeysetCursor cursor, SearchAreaDto area);
 
     EventFullDto getEventById(long eventId);
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package ru.practicum.mainservice.service;
 
+import org.springframework.data.domain.Slice;
 import ru.practicum.mainservice.dto.user.UserFullDto;
+import ru.practicum.mainservice.pagination.KeysetCursor;
 
 import java.util.List;
 
@@ -8,7 +10,7 @@ public interface UserService {
 
     UserFullDto addUser(UserFullDto userFullDto);
 
-    List<UserFullDto> getUsers(List<Long> ids, int from, int size);
+    Slice<UserFullDto> getUsers(List<Long> ids, int from, int size, KeysetCursor cursor);
 
     void deleteUser(long userId);
 }
@@ -1,5 +1,6 @@
 package ru.practicum.mainservice.service.impl;
 
+import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.*;
@@ -9,7 +10,7 @@ import ru.practicum.mainservice.dto.compilation.*;
 import ru.practicum.mainservice.exception.NotFoundException;
 import ru.practicum.mainservice.mapper.CompilationMapper;
 import ru.practicum.mainservice.model.*;
-import ru.practicum.mainservice.pagination.OffsetBasedPageRequest;
+import ru.practicum.mainservice.pagination.*;
 import ru.practicum.mainservice.repository.*;
 import ru.practicum.mainservice.service.CompilationService;
 
@@ -22,6 +23,7 @@ import java.util.stream.Collectors;
 public class CompilationServiceImpl implements CompilationService {
     private final EventRepository eventRepository;
     private final CompilationRepository compilationRepository;
+    private final EventEnricher eventEnricher;
 
     @Transactional
     @Override
@@ -37,7 +39,7 @@ public class CompilationServiceImpl implements CompilationService {
 
         compilationRepository.save(compilation);
 
-        return CompilationMapper.toCompilationDto(compilation);
+        return toCompilationDtos(List.of(compilation)).get(0);
     }
 
     @Transactional
@@ -67,33 +69,54 @@ public class CompilationServiceImpl implements CompilationService {
 
         CompilationMapper.fromUpdateDtoToCompilation(updateCompilationRequestDto, compilation, events);
 
-        return CompilationMapper.toCompilationDto(compilation);
+        return toCompilationDtos(List.of(compilation)).get(0);
     }
 
     @Override
-    public List<CompilationDto> getCompilations(Boolean pinned, int from, int size) {
-        Pageable pageable = new OffsetBasedPageRequest(from, size, Sort.by(Sort.Direction.DESC, "id"));
-        List<Compilation> compilations;
+    public Slice<CompilationDto> getCompilations(Boolean pinned, int from, int size, KeysetCursor cursor) {
+        Pageable pageable = new OffsetBasedPageRequest(cursor == null ? from : 0, size,
+                Sort.by(Sort.Direction.DESC, "id"));
+        BooleanBuilder where = new BooleanBuilder();
 
         if (pinned != null) {
             BooleanExpression byPinned = QCompilation.compilation.pinned.eq(pinned);
-            compilations = compilationRepository.findAll(byPinned, pageable)
-                    .getContent();
-        } else {
-            compilations = compilationRepository.findAll(pageable)
-                    .getContent();
+            where.and(byPinned);
+        }
+        if (cursor != null) {
+            BooleanExpression afterCursor = QCompilation.compilation.id.lt((int) cursor.getId());
+            where.and(afterCursor);
         }
 
-        return compilations.stream()
-                .map(CompilationMapper::toCompilationDto)
-                .collect(Collectors.toList());
+        Slice<Integer> ids = compilationRepository.findIdSlice(where, pageable);
+
+        if (!ids.hasContent()) {
+            return new SliceImpl<>(List.of(), pageable, false);
+        }
+
+        // The page is selected first, so the fetch joins below are not paginated in memory
+        List<Compilation> compilations = compilationRepository.findAllWithEventsByIdIn(ids.getContent());
+
+        return new SliceImpl<>(toCompilationDtos(compilations), pageable, ids.hasNext());
     }
 
     @Override
     public CompilationDto getCompilationById(int compId) {
-        Compilation compilation = compilationRepository.findById(compId)
+        Compilation compilation = compilationRepository.findWithEventsById(compId)
                 .orElseThrow(() -> new NotFoundException(String.format("Compilation with id=%d was not found", compId)));
 
-        return CompilationMapper.toCompilationDto(compilation);
+        return toCompilationDtos(List.of(compilation)).get(0);
+    }
+
+    private List<CompilationDto> toCompilationDtos(List<Compilation> compilations) {
+        List<Event> events = compilations.stream()
+                .flatMap(compilation -> compilation.getEvents()
+                        .stream())
+                .collect(Collectors.toList());
+
+        eventEnricher.addViews(events);
+
+        return compilations.stream()
+                .map(CompilationMapper::toCompilationDto)
+                .collect(Collectors.toList());
     }
 }
@@ -0,0 +1,126 @@
+package ru.practicum.mainservice.service.impl;
+
+import io.micrometer.core.instrument.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.stereotype.Component;
+import ru.practicum.client.StatClient;
+import ru.practicum.dto.StatResponseDto;
+import ru.practicum.mainservice.dto.event.EventShortDto;
+import ru.practicum.mainservice.model.Event;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * Fills in views for a batch of events with one stats call. Confirmed requests are read from
+ * {@code events.confirmed_requests} together with the events themselves.
+ * <p>
+ * The stats call runs on the bounded {@code enrichmentExecutor}, so callers can start it before their own
+ * database work and join it afterwards. Views that are not there within {@code enrichment.timeout-ms}
+ * are served as zero and counted in {@code events.views.stale} instead of failing the request.
+ */
+@Slf4j
+@Component
+public class EventEnricher {
+    private final StatClient statClient;
+    private final Executor executor;
+    private final long timeoutMs;
+    private final Counter staleViews;
+
+    public EventEnricher(StatClient statClient,
+                         @Qualifier("enrichmentExecutor") Executor executor,
+                         @Value("${enrichment.timeout-ms:500}") long timeoutMs,
+                         MeterRegistry meterRegistry) {
+        this.statClient = statClient;
+        this.executor = executor;
+        this.timeoutMs = timeoutMs;
+        this.staleViews = Counter.builder("events.views.stale")
+                .description("Event reads answered without views because the stats server was late or failed")
+                .register(meterRegistry);
+    }
+
+    public void addViews(Collection<Event> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids = events.stream()
+                .map(Event::getId)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, Long> hits = awaitViews(getViewsAsync(ids));
+
+        for (Event event : events) {
+            event.setViews(hits.getOrDefault(event.getId(), 0L));
+        }
+    }
+
+    public void addShortDtoViews(Collection<EventShortDto> dtos) {
+        if (dtos.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Long> hits = getViews(dtos.stream()
+                .map(EventShortDto::getId)
+                .distinct()
+                .collect(Collectors.toList()));
+
+        for (EventShortDto dto : dtos) {
+            dto.setViews(hits.getOrDefault(dto.getId(), 0L));
+        }
+    }
+
+    public Map<Long, Long> getViews(Collection<Long> ids) {
+        return awaitViews(getViewsAsync(ids));
+    }
+
+    public CompletableFuture<Map<Long, Long>> getViewsAsync(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return CompletableFuture.completedFuture(Map.of());
+        }
+
+        List<Long> snapshot = List.copyOf(ids);
+        try {
+            return CompletableFuture.supplyAsync(() -> fetchViews(snapshot), executor);
+        } catch (RejectedExecutionException e) {
+            log.warn("Enrichment executor is saturated, serving {} events without views", snapshot.size());
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public Map<Long, Long> awaitViews(CompletableFuture<Map<Long, Long>> views) {
+        try {
+            return views.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            views.cancel(false);
+            log.warn("Views were not received within {} ms, serving them as zero", timeoutMs);
+        } catch (ExecutionException e) {
+            log.warn("Views could not be received, serving them as zero: {}", e.getCause()
+                    .getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                    .interrupt();
+        }
+
+        staleViews.increment();
+        return Map.of();
+    }
+
+    private Map<Long, Long> fetchViews(List<Long> ids) {
+        List<String> uris = ids.stream()
+                .map(id -> String.format("/events/%d", id))
+                .collect(Collectors.toList());
+        List<StatResponseDto> stats = statClient.getTotals(uris, true);
+
+        Map<Long, Long> hits = new HashMap<>();
+        for (StatResponseDto stat : stats) {
+            Long id = Long.valueOf(stat.getUri()
+                    .substring(8));
+            hits.put(id, stat.getHits());
+        }
+
+        return hits;
+    }
+}
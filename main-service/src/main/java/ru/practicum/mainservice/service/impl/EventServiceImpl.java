@@ -4,16 +4,15 @@ import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.*;
+import org.springframework.data.querydsl.QSort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.practicum.client.StatClient;
-import ru.practicum.dto.StatResponseDto;
 import ru.practicum.mainservice.dto.event.*;
-import ru.practicum.mainservice.dto.request.RequestCountDto;
+import ru.practicum.mainservice.dto.location.SearchAreaDto;
 import ru.practicum.mainservice.exception.*;
 import ru.practicum.mainservice.mapper.*;
 import ru.practicum.mainservice.model.*;
-import ru.practicum.mainservice.pagination.OffsetBasedPageRequest;
+import ru.practicum.mainservice.pagination.*;
 import ru.practicum.mainservice.repository.*;
 import ru.practicum.mainservice.service.EventService;
 import ru.practicum.mainservice.valid.Validator;
@@ -21,6 +20,7 @@ import ru.practicum.mainservice.valid.Validator;
 import java.beans.Transient;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,8 +29,8 @@ public class EventServiceImpl implements EventService {
     private final EventRepository eventRepository;
     private final CategoryRepository categoryRepository;
     private final Validator validator;
-    private final StatClient statClient;
-    private final RequestRepository requestRepository;
+    private final EventEnricher eventEnricher;
+    private final PublicEventCache publicEventCache;
 
     @Transactional
     @Override
@@ -74,19 +74,27 @@ public class EventServiceImpl implements EventService {
         }
 
         EventMapper.fromUpdateDtoToEvent(updateEventRequestDto, event, category, eventDate, state);
+        publicEventCache.invalidate(eventId);
 
-        addViewsAndConfirmedRequestsForEvents(List.of(event));
+        eventEnricher.addViews(List.of(event));
 
         return EventMapper.toEventFullDto(event);
     }
 
     @Override
-    public List<EventFullDto> getEventsAdminApi(List<Long> users, List<EventState> states, List<Integer> categories,
-                                                LocalDateTime rangeStart, LocalDateTime rangeEnd, int from, int size) {
-        List<Event> events;
-        Pageable pageable = new OffsetBasedPageRequest(from, size, Sort.by(Sort.Direction.DESC, "id"));
+    public Slice<EventFullDto> getEventsAdminApi(List<Long> users, List<EventState> states, List<Integer> categories,
+                                                LocalDateTime rangeStart, LocalDateTime rangeEnd, int from, int size,
+                                                KeysetCursor cursor) {
+        Slice<Event> events;
+        Pageable pageable = new OffsetBasedPageRequest(cursor == null ? from : 0, size,
+                Sort.by(Sort.Direction.DESC, "id"));
         BooleanBuilder where = new BooleanBuilder();
 
+        if (cursor != null) {
+            BooleanExpression afterCursor = QEvent.event.id.lt(cursor.getId());
+            where.and(afterCursor);
+        }
+
         if (!users.isEmpty()) {
             BooleanExpression byUsersId = QEvent.event.initiator.id.in(users);
             where.and(byUsersId);
@@ -102,9 +110,9 @@ public class EventServiceImpl implements EventService {
 
         BooleanExpression byEventDate;
         if (rangeStart == null && rangeEnd == null) {
-            events = eventRepository.findAll(where, pageable)
-                    .getContent();
-            return EventMapper.toListOfEventFullDto(events);
+            events = eventRepository.findSlice(where, pageable);
+            return new SliceImpl<>(EventMapper.toListOfEventFullDto(events.getContent()), pageable,
+                    events.hasNext());
         } else if (rangeStart == null) {
             byEventDate = QEvent.event.eventDate.before(rangeEnd);
         } else if (rangeEnd == null) {
@@ -114,12 +122,11 @@ public class EventServiceImpl implements EventService {
         }
 
         where.and(byEventDate);
-        events = eventRepository.findAll(where, pageable)
-                .getContent();
+        events = eventRepository.findSlice(where, pageable);
 
-        addViewsAndConfirmedRequestsForEvents(events);
+        eventEnricher.addViews(events.getContent());
 
-        return EventMapper.toListOfEventFullDto(events);
+        return new SliceImpl<>(EventMapper.toListOfEventFullDto(events.getContent()), pageable, events.hasNext());
     }
 
     @Transactional
@@ -148,19 +155,19 @@ public class EventServiceImpl implements EventService {
     public List<EventShortDto> getAllUserEvents(long userId, int from, int size) {
         Pageable pageable = new OffsetBasedPageRequest(from, size, Sort.by(Sort.Direction.DESC, "id"));
 
-        List<Event> events = eventRepository.findAllByInitiatorId(userId, pageable)
+        List<EventShortDto> events = eventRepository.findShortDtos(QEvent.event.initiator.id.eq(userId), pageable)
                 .getContent();
 
-        addViewsAndConfirmedRequestsForEvents(events);
+        eventEnricher.addShortDtoViews(events);
 
-        return EventMapper.toListOfEventShortDto(events);
+        return events;
     }
 
     @Override
     public EventFullDto getEventByUserAndEventId(long userId, long eventId) {
         Event event = validator.findUserEventOrThrow(eventId, userId);
 
-        addViewsAndConfirmedRequestsForEvents(List.of(event));
+        eventEnricher.addViews(List.of(event));
 
         return EventMapper.toEventFullDto(event);
     }
@@ -203,35 +210,56 @@ public class EventServiceImpl implements EventService {
 
 
         EventMapper.fromUpdateDtoToEvent(updateEventRequestDto, event, category, eventDate, state);
+        publicEventCache.invalidate(eventId);
 
-        addViewsAndConfirmedRequestsForEvents(List.of(event));
+        eventEnricher.addViews(List.of(event));
 
         return EventMapper.toEventFullDto(event);
     }
 
     @Transient
     @Override
-    public List<EventShortDto> getEventsPublicApi(String text, List<Integer> categories, Boolean paid,
+    public Slice<EventShortDto> getEventsPublicApi(String text, List<Integer> categories, Boolean paid,
                                                   LocalDateTime rangeStart, LocalDateTime rangeEnd,
-                                                  boolean onlyAvailable, String sort, int from, int size) {
-        List<Event> events;
+                                                  boolean onlyAvailable, String sort, int from, int size,
+                                                  KeysetCursor cursor, SearchAreaDto area) {
         Sort sortOption = Sort.by(Sort.Direction.DESC, "id");
+        boolean liveViews = true;
+        String tsQuery = EventSearchExpressions.toTsQuery(text);
+        BooleanExpression afterCursor = cursor == null ? null : QEvent.event.id.lt(cursor.getId());
+
+        if (cursor != null && !EventSortOption.supportsCursor(sort, text)) {
+            throw new BadRequestException(String.format("Cursor pagination is not supported for sort=%s", sort));
+        }
 
         if (sort.equals(EventSortOption.EVENT_DATE.toString())) {
-            sortOption = Sort.by(Sort.Direction.ASC, "eventDate");
+            sortOption = Sort.by(Sort.Direction.ASC, "eventDate", "id");
+            if (cursor != null) {
+                LocalDateTime lastEventDate = cursor.getEventDateOrThrow();
+                afterCursor = QEvent.event.eventDate.after(lastEventDate)
+                        .or(QEvent.event.eventDate.eq(lastEventDate)
+                                .and(QEvent.event.id.gt(cursor.getId())));
+            }
         } else if (sort.equals(EventSortOption.VIEWS.toString())) {
-            sortOption = Sort.by(Sort.Direction.DESC, "views");
+            sortOption = Sort.by(Sort.Direction.DESC, "views", "id");
+            // Show the synced views the page is ordered by, not live totals that could contradict the order
+            liveViews = false;
+        } else if (sort.equals(EventSortOption.RELEVANCE.toString()) && tsQuery != null) {
+            sortOption = new QSort(EventSearchExpressions.rank(tsQuery).desc(), QEvent.event.id.desc());
         }
 
-        Pageable pageable = new OffsetBasedPageRequest(from, size, sortOption);
+        Pageable pageable = new OffsetBasedPageRequest(cursor == null ? from : 0, size, sortOption);
         BooleanBuilder where = new BooleanBuilder();
 
+        if (afterCursor != null) {
+            where.and(afterCursor);
+        }
+
         BooleanExpression byPublishState = QEvent.event.state.eq(EventState.PUBLISHED);
         where.and(byPublishState);
 
-        if (!text.isBlank()) {
-            BooleanExpression byText = QEvent.event.annotation.containsIgnoreCase(text)
-                    .or(QEvent.event.description.containsIgnoreCase(text));
+        if (tsQuery != null) {
+            BooleanExpression byText = EventSearchExpressions.matches(tsQuery);
             where.and(byText);
         }
 
@@ -259,24 +287,48 @@ public class EventServiceImpl implements EventService {
 
         where.and(byEventDate);
 
-        events = eventRepository.findAll(where, pageable)
-                .getContent();
-        if (events.isEmpty()) throw new BadRequestException("No events found");
-
-        addViewsAndConfirmedRequestsForEvents(events);
+        if (area != null) {
+            where.and(EventGeoSearch.within(area));
+        }
 
         if (onlyAvailable) {
-            events = events.stream()
-                    .filter(event -> event.getConfirmedRequest() != event.getParticipantLimit())
-                    .collect(Collectors.toList());
+            BooleanExpression byAvailability = QEvent.event.participantLimit.eq(0)
+                    .or(QEvent.event.confirmedRequest.lt(QEvent.event.participantLimit));
+            where.and(byAvailability);
+
+            // Availability changes with every confirmed request, so such pages are not cached
+            return findEventsPublicApi(where, pageable, liveViews);
         }
 
-        return EventMapper.toListOfEventShortDto(events);
+        List<Object> query = Arrays.asList(text, categories, paid, rangeStart, rangeEnd, sort, from, size,
+                cursor == null ? null : cursor.encode(), area);
+
+        boolean cachedLiveViews = liveViews;
+        return publicEventCache.getEvents(query, liveViews,
+                () -> findEventsPublicApi(where, pageable, cachedLiveViews));
+    }
+
+    private Slice<EventShortDto> findEventsPublicApi(BooleanBuilder where, Pageable pageable, boolean liveViews) {
+        Slice<EventShortDto> events = eventRepository.findShortDtos(where, pageable);
+        if (!events.hasContent()) throw new BadRequestException("No events found");
+
+        if (liveViews) {
+            eventEnricher.addShortDtoViews(events.getContent());
+        }
+
+        return events;
     }
 
     @Override
     @Transient
     public EventFullDto getEventById(long eventId) {
+        return publicEventCache.getEvent(eventId, () -> loadPublishedEvent(eventId));
+    }
+
+    private EventFullDto loadPublishedEvent(long eventId) {
+        // The id is known up front, so the stats call runs while the event is read from the database
+        CompletableFuture<Map<Long, Long>> views = eventEnricher.getViewsAsync(List.of(eventId));
+
         Event event = eventRepository.findById(eventId)
                 .orElseThrow(() -> new NotFoundException(String.format("Event with id=%d was not found", eventId)));
 
@@ -285,54 +337,9 @@ public class EventServiceImpl implements EventService {
             throw new NotFoundException("Event is not available because it has not been published yet");
         }
 
-        addViewsAndConfirmedRequestsForEvents(List.of(event));
+        event.setViews(eventEnricher.awaitViews(views)
+                .getOrDefault(eventId, 0L));
 
         return EventMapper.toEventFullDto(event);
     }
-
-    private Map<Long, Long> getHits(List<Long> ids) {
-        List<String> uris = ids.stream()
-                .map(id -> String.format("/events/%d", id))
-                .collect(Collectors.toList());
-        List<StatResponseDto> stats;
-
-        stats = statClient.getStats(DateTimeMapper.fromLocalDateTime(LocalDateTime.now()
-                .minusYears(10)), DateTimeMapper.fromLocalDateTime(LocalDateTime.now()
-                .plusYears(10)), uris, true);
-
-        Map<Long, Long> hits = new HashMap<>();
-        for (StatResponseDto stat : stats) {
-            Long id = Long.valueOf(stat.getUri()
-                    .substring(8));
-            hits.put(id, stat.getHits());
-        }
-
-        return hits;
-    }
-
-    private void addViewsAndConfirmedRequestsForEvents(List<Event> events) {
-        List<Long> ids = events.stream()
-                .map(Event::getId)
-                .collect(Collectors.toList());
-        Map<Long, Long> hits = getHits(ids);
-
-        for (Event event : events) {
-            event.setViews(hits.getOrDefault(event.getId(), 0L));
-        }
-
-        Map<Long, Long> confirmedRequests = requestRepository.findAllConfirmedRequestsByEventIds(ids, RequestStatus.CONFIRMED)
-                .stream()
-                .collect(Collectors.toMap(RequestCountDto::getId, RequestCountDto::getCount));
-
-        confirmedRequests.entrySet()
-                .forEach(entry -> {
-                    System.out.println("TESTING TEST: " + entry);
-                });
-
-        for (Event event : events) {
-            System.out.println(event.getId() + " " + confirmedRequests.containsKey(event.getId()) + " " + confirmedRequests);
-
-            event.setConfirmedRequest(confirmedRequests.getOrDefault(event.getId(), 0L));
-        }
-    }
 }
@@ -0,0 +1,68 @@
+package ru.practicum.mainservice.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.client.*;
+import ru.practicum.dto.StatResponseDto;
+import ru.practicum.mainservice.mapper.DateTimeMapper;
+import ru.practicum.mainservice.repository.EventRepository;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.regex.*;
+
+/**
+ * Copies unique views of events from the stats server into {@code events.views}. The first run copies all
+ * counters, later runs only those changed since the previous run (minus {@code views-sync.overlap-seconds}
+ * to tolerate clock skew between the servers).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "views-sync.enabled", havingValue = "true", matchIfMissing = true)
+public class EventViewsSynchronizer {
+    private static final Pattern EVENT_URI = Pattern.compile("^/events/(\\d+)$");
+    private static final LocalDateTime FULL_SYNC_SINCE = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final StatClient statClient;
+    private final EventRepository eventRepository;
+
+    @Value("${views-sync.overlap-seconds:60}")
+    private long overlapSeconds;
+
+    private LocalDateTime lastSync;
+
+    @Scheduled(fixedDelayString = "${views-sync.interval-ms:60000}", initialDelayString = "${views-sync.initial-delay-ms:10000}")
+    public void syncViews() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        List<StatResponseDto> stats;
+
+        try {
+            // Not getTotals: its last-known fallback would let an outage pass for a completed full sync
+            LocalDateTime since = lastSync == null ? FULL_SYNC_SINCE : lastSync.minusSeconds(overlapSeconds);
+            stats = statClient.getTotalsChangedSince(DateTimeMapper.fromLocalDateTime(since), true);
+        } catch (StatServerConnectException e) {
+            log.warn("Failed to sync event views, stats server is unavailable: {}", e.getMessage());
+            return;
+        } catch (RuntimeException e) {
+            log.error("Failed to sync event views", e);
+            return;
+        }
+
+        Map<Long, Long> views = new HashMap<>();
+        for (StatResponseDto stat : stats) {
+            Matcher matcher = EVENT_URI.matcher(stat.getUri());
+            if (matcher.matches()) {
+                views.merge(Long.valueOf(matcher.group(1)), stat.getHits(), Math::max);
+            }
+        }
+
+        eventRepository.updateViews(views);
+        lastSync = startedAt;
+        log.debug("Synced views of {} events", views.size());
+    }
+}
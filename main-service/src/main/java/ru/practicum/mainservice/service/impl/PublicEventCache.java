@@ -0,0 +1,217 @@
+package ru.practicum.mainservice.service.impl;
+
+import com.github.benmanes.caffeine.cache.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.*;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.*;
+import ru.practicum.mainservice.dto.event.*;
+import ru.practicum.mainservice.repository.*;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Caches public reads of published events: single events by id and pages of {@code GET /events} by query.
+ * <p>
+ * Cached DTOs never serve their own counters. On every hit views are taken from the stats client (which has
+ * its own short TTL cache, {@code stats-client.cache.*}) and confirmed requests from a per-event counter
+ * cache with a TTL of {@code public-events-cache.counters-ttl-ms}, both at once; the overlay is applied to copies.
+ * Pages sorted by views keep the synced views they are ordered by.
+ * <p>
+ * Any change of an event evicts it and all cached pages once the changing transaction commits, since
+ * publication, a new date or a new category can move an event in or out of any page. Everything else
+ * (category names, initiators) is bounded by {@code public-events-cache.ttl-ms}. Deleting a user evicts
+ * everything, since their events go with them by cascade.
+ * <p>
+ * The cache and its invalidation are local to one JVM: with several instances behind a balancer, the others keep
+ * serving their copies until {@code public-events-cache.ttl-ms} runs out.
+ */
+@Slf4j
+@Component
+public class PublicEventCache {
+    private final EventEnricher eventEnricher;
+    private final EventRepository eventRepository;
+    private final boolean enabled;
+    private final Cache<Long, EventFullDto> events;
+    private final Cache<List<Object>, Slice<EventShortDto>> pages;
+    private final Cache<Long, Long> confirmedRequests;
+    // Bumped by every invalidation, so a value loaded before it is not put into the cache after it
+    private final AtomicLong generation = new AtomicLong();
+
+    public PublicEventCache(EventEnricher eventEnricher,
+                            EventRepository eventRepository,
+                            MeterRegistry meterRegistry,
+                            @Value("${public-events-cache.enabled:false}") boolean enabled,
+                            @Value("${public-events-cache.ttl-ms:30000}") long ttlMs,
+                            @Value("${public-events-cache.maximum-size:10000}") long maximumSize,
+                            @Value("${public-events-cache.counters-ttl-ms:1000}") long countersTtlMs) {
+        this.eventEnricher = eventEnricher;
+        this.eventRepository = eventRepository;
+        this.enabled = enabled;
+        this.events = build(Duration.ofMillis(ttlMs), maximumSize);
+        this.pages = build(Duration.ofMillis(ttlMs), maximumSize);
+        this.confirmedRequests = build(Duration.ofMillis(countersTtlMs), maximumSize);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, events, "events.public.by-id");
+        CaffeineCacheMetrics.monitor(meterRegistry, pages, "events.public.pages");
+        CaffeineCacheMetrics.monitor(meterRegistry, confirmedRequests, "events.public.confirmed-requests");
+    }
+
+    public EventFullDto getEvent(long eventId, Supplier<EventFullDto> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        EventFullDto cached = events.getIfPresent(eventId);
+        if (cached != null) {
+            return overlayCounters(List.of(cached)).get(0);
+        }
+
+        long loadedIn = generation.get();
+        EventFullDto loaded = loader.get();
+        putIfNotInvalidated(events, eventId, loaded, loadedIn);
+
+        return loaded;
+    }
+
+    /**
+     * With {@code liveViews} off, the views loaded with the page (the synced {@code events.views} column) are
+     * served as they are instead of being replaced by live totals.
+     */
+    public Slice<EventShortDto> getEvents(List<Object> query, boolean liveViews,
+                                          Supplier<Slice<EventShortDto>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        Slice<EventShortDto> cached = pages.getIfPresent(query);
+        if (cached != null) {
+            return new SliceImpl<>(overlayShortCounters(cached.getContent(), liveViews), cached.getPageable(),
+                    cached.hasNext());
+        }
+
+        long loadedIn = generation.get();
+        Slice<EventShortDto> loaded = loader.get();
+        putIfNotInvalidated(pages, query,
+                new SliceImpl<>(List.copyOf(loaded.getContent()), loaded.getPageable(), loaded.hasNext()), loadedIn);
+
+        return loaded;
+    }
+
+    /**
+     * Evicts the event and every cached page after the current transaction commits, or right away without one.
+     */
+    public void invalidate(long eventId) {
+        afterCommit(() -> evict(eventId));
+    }
+
+    /**
+     * Evicts everything after the current transaction commits, or right away without one.
+     */
+    public void invalidateAll() {
+        afterCommit(this::evictAll);
+    }
+
+    private void afterCommit(Runnable eviction) {
+        if (!enabled) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        } else {
+            eviction.run();
+        }
+    }
+
+    private void evict(long eventId) {
+        generation.incrementAndGet();
+        events.invalidate(eventId);
+        confirmedRequests.invalidate(eventId);
+        pages.invalidateAll();
+        log.debug("Evicted event {} and all cached event pages", eventId);
+    }
+
+    private void evictAll() {
+        generation.incrementAndGet();
+        events.invalidateAll();
+        confirmedRequests.invalidateAll();
+        pages.invalidateAll();
+        log.debug("Evicted all cached events");
+    }
+
+    private <K, V> void putIfNotInvalidated(Cache<K, V> cache, K key, V value, long loadedIn) {
+        cache.put(key, value);
+
+        // An invalidation that raced with the load may have run before the put; drop the stale value again
+        if (generation.get() != loadedIn) {
+            cache.invalidate(key);
+        }
+    }
+
+    private List<EventFullDto> overlayCounters(List<EventFullDto> dtos) {
+        Set<Long> ids = dtos.stream()
+                .map(EventFullDto::getId)
+                .collect(Collectors.toSet());
+        CompletableFuture<Map<Long, Long>> pendingViews = eventEnricher.getViewsAsync(ids);
+        Map<Long, Long> confirmed = getConfirmedRequests(ids);
+        Map<Long, Long> views = eventEnricher.awaitViews(pendingViews);
+
+        return dtos.stream()
+                .map(dto -> dto.toBuilder()
+                        .views(views.getOrDefault(dto.getId(), 0L))
+                        .confirmedRequests(confirmed.getOrDefault(dto.getId(), dto.getConfirmedRequests()))
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private List<EventShortDto> overlayShortCounters(List<EventShortDto> dtos, boolean liveViews) {
+        Set<Long> ids = dtos.stream()
+                .map(EventShortDto::getId)
+                .collect(Collectors.toSet());
+        CompletableFuture<Map<Long, Long>> pendingViews = liveViews ? eventEnricher.getViewsAsync(ids) : null;
+        Map<Long, Long> confirmed = getConfirmedRequests(ids);
+        Map<Long, Long> views = liveViews ? eventEnricher.awaitViews(pendingViews) : null;
+
+        return dtos.stream()
+                .map(dto -> dto.toBuilder()
+                        .views(views == null ? dto.getViews() : views.getOrDefault(dto.getId(), 0L))
+                        .confirmedRequests(confirmed.getOrDefault(dto.getId(), (long) dto.getConfirmedRequests())
+                                .intValue())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private Map<Long, Long> getConfirmedRequests(Set<Long> ids) {
+        return confirmedRequests.getAll(ids, missing -> {
+            List<Long> missingIds = new ArrayList<>();
+            missing.forEach(missingIds::add);
+
+            return eventRepository.findConfirmedRequestsByIdIn(missingIds)
+                    .stream()
+                    .collect(Collectors.toMap(EventConfirmedRequests::getId,
+                            EventConfirmedRequests::getConfirmedRequests));
+        });
+    }
+
+    private static <K, V> Cache<K, V> build(Duration ttl, long maximumSize) {
+        return Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+}
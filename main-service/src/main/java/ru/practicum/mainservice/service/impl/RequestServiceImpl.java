@@ -7,7 +7,7 @@ import ru.practicum.mainservice.dto.request.*;
 import ru.practicum.mainservice.exception.*;
 import ru.practicum.mainservice.mapper.RequestMapper;
 import ru.practicum.mainservice.model.*;
-import ru.practicum.mainservice.repository.RequestRepository;
+import ru.practicum.mainservice.repository.*;
 import ru.practicum.mainservice.service.RequestService;
 import ru.practicum.mainservice.valid.Validator;
 
@@ -18,6 +18,7 @@ import java.util.*;
 @RequiredArgsConstructor
 public class RequestServiceImpl implements RequestService {
     private final RequestRepository requestRepository;
+    private final EventRepository eventRepository;
     private final Validator validator;
 
     @Transactional
@@ -37,7 +38,7 @@ public class RequestServiceImpl implements RequestService {
             throw new ConflictException("Can't participate in an unpublished event");
         }
 
-        if (event.getParticipantLimit() != 0 && event.getParticipantLimit() == getCountOfConfirmedRequestsByEventId(eventId)) {
+        if (event.getParticipantLimit() != 0 && event.getParticipantLimit() <= event.getConfirmedRequest()) {
             throw new ConflictException("Participation limit expired");
         }
 
@@ -63,6 +64,11 @@ public class RequestServiceImpl implements RequestService {
             }
         }
 
+        if (request.getStatus()
+                .equals(RequestStatus.CONFIRMED) && eventRepository.reserveConfirmedRequest(eventId) == 0) {
+            throw new ConflictException("Participation limit expired");
+        }
+
         requestRepository.save(request);
 
         return RequestMapper.toRequestDto(request);
@@ -95,6 +101,12 @@ public class RequestServiceImpl implements RequestService {
             throw new ConflictException(String.format("User with id: %d is not the requester" + " of the event and cannot cancel the request", userId));
         }
 
+        if (request.getStatus()
+                .equals(RequestStatus.CONFIRMED)) {
+            eventRepository.addConfirmedRequests(request.getEvent()
+                    .getId(), -1);
+        }
+
         request.setStatus(RequestStatus.CANCELED);
 
         return RequestMapper.toRequestDto(request);
@@ -105,57 +117,55 @@ public class RequestServiceImpl implements RequestService {
     public RequestStatusUpdateResultDto updateRequestsStatus(long userId, long eventId,
                                                              RequestStatusUpdateRequestDto updateDto) {
         Event event = validator.findUserEventOrThrow(eventId, userId);
-        List<Request> requests = requestRepository.findAllByIdIn(updateDto.getRequestIds());
+        List<Long> requestIds = updateDto.getRequestIds();
 
         RequestStatusUpdateResultDto resultDto = RequestStatusUpdateResultDto.builder()
                 .confirmedRequests(new ArrayList<>())
                 .rejectedRequests(new ArrayList<>())
                 .build();
 
+        if (requestIds.isEmpty()) {
+            return resultDto;
+        }
+
+        if (requestRepository.countByEventIdAndIdIn(eventId, requestIds) != new HashSet<>(requestIds).size()) {
+            throw new NotFoundException(String.format("Some of the requests were not found for event with id=%d",
+                    eventId));
+        }
+
         if (!event.isRequestModeration() || event.getParticipantLimit() == 0) {
             resultDto.getConfirmedRequests()
-                    .addAll(RequestMapper.toListOfRequestDto(requests));
+                    .addAll(requestRepository.findRequestDtosByEventIdAndIdIn(eventId, requestIds));
             return resultDto;
         }
 
-        int confirmedRequests = getCountOfConfirmedRequestsByEventId(eventId);
-        if (event.getParticipantLimit() == confirmedRequests) {
+        // Checked under the lock: a concurrent call may have just confirmed some of these requests
+        if (event.getParticipantLimit() <= requestRepository.lockEventForModeration(eventId)) {
             throw new ConflictException("Limit of requests for participation is over");
         }
 
-        if (!requests.stream()
-                .allMatch(r -> r.getStatus()
-                        .equals(RequestStatus.PENDING))) {
+        if (requestRepository.existsByEventIdAndIdInAndStatusNot(eventId, requestIds, RequestStatus.PENDING)) {
             throw new ConflictException("All requests should be in status PENDING");
         }
 
+        // Confirms what still fits in id order, then rejects the rest: two statements whatever the batch size
         if (updateDto.getStatus()
-                .equals(StatusOfUpdateRequest.REJECTED)) {
-            requests.forEach(r -> r.setStatus(RequestStatus.REJECTED));
-            resultDto.getRejectedRequests()
-                    .addAll(RequestMapper.toListOfRequestDto(requests));
-            return resultDto;
+                .equals(StatusOfUpdateRequest.CONFIRMED)) {
+            requestRepository.confirmPendingRequests(eventId, requestIds);
         }
+        requestRepository.rejectPendingRequests(eventId, requestIds);
 
-        int reserve = event.getParticipantLimit() - confirmedRequests;
-
-        for (Request request : requests) {
-            if (reserve > 0) {
-                request.setStatus(RequestStatus.CONFIRMED);
+        for (RequestDto request : requestRepository.findRequestDtosByEventIdAndIdIn(eventId, requestIds)) {
+            if (request.getStatus()
+                    .equals(RequestStatus.CONFIRMED)) {
                 resultDto.getConfirmedRequests()
-                        .add(RequestMapper.toRequestDto(request));
-                --reserve;
+                        .add(request);
             } else {
-                request.setStatus(RequestStatus.REJECTED);
                 resultDto.getRejectedRequests()
-                        .add(RequestMapper.toRequestDto(request));
+                        .add(request);
             }
         }
 
         return resultDto;
     }
-
-    private int getCountOfConfirmedRequestsByEventId(long eventId) {
-        return requestRepository.countAllByEventIdAndStatusEquals(eventId, RequestStatus.CONFIRMED);
-    }
 }
@@ -1,5 +1,7 @@
 package ru.practicum.mainservice.service.impl;
 
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.dsl.BooleanExpression;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
@@ -7,19 +9,20 @@ import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.mainservice.dto.user.UserFullDto;
 import ru.practicum.mainservice.exception.NotFoundException;
 import ru.practicum.mainservice.mapper.UserMapper;
-import ru.practicum.mainservice.model.User;
-import ru.practicum.mainservice.pagination.OffsetBasedPageRequest;
-import ru.practicum.mainservice.repository.UserRepository;
+import ru.practicum.mainservice.model.*;
+import ru.practicum.mainservice.pagination.*;
+import ru.practicum.mainservice.repository.*;
 import ru.practicum.mainservice.service.UserService;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
+    private final EventRepository eventRepository;
+    private final PublicEventCache publicEventCache;
 
     @Transactional
     @Override
@@ -30,17 +33,22 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public List<UserFullDto> getUsers(List<Long> ids, int from, int size) {
-        Pageable pageable = new OffsetBasedPageRequest(from, size, Sort.by(Sort.Direction.ASC, "id"));
-
-        return ids != null ? userRepository.findAllByIdIn(ids, pageable)
-                .getContent()
-                .stream()
-                .map(UserMapper::toUserDto)
-                .collect(Collectors.toList()) : userRepository.findAll(pageable)
-                .stream()
-                .map(UserMapper::toUserDto)
-                .collect(Collectors.toList());
+    public Slice<UserFullDto> getUsers(List<Long> ids, int from, int size, KeysetCursor cursor) {
+        Pageable pageable = new OffsetBasedPageRequest(cursor == null ? from : 0, size,
+                Sort.by(Sort.Direction.ASC, "id"));
+        BooleanBuilder where = new BooleanBuilder();
+
+        if (ids != null) {
+            BooleanExpression byIds = QUser.user.id.in(ids);
+            where.and(byIds);
+        }
+        if (cursor != null) {
+            BooleanExpression afterCursor = QUser.user.id.gt(cursor.getId());
+            where.and(afterCursor);
+        }
+
+        return userRepository.findSlice(where, pageable)
+                .map(UserMapper::toUserDto);
     }
 
     @Transactional
@@ -50,6 +58,9 @@ public class UserServiceImpl implements UserService {
             throw new NotFoundException(String.format("User with id=%d was not found", userId));
         }
 
+        // Requests of the user are removed by ON DELETE CASCADE, so release the places they held first
+        eventRepository.subtractConfirmedRequestsOfRequester(userId);
         userRepository.deleteById(userId);
+        publicEventCache.invalidateAll();
     }
 }
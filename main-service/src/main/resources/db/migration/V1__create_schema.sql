@@ -0,0 +1,57 @@
+CREATE TABLE users
+(
+    id    BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    name  VARCHAR(255) NOT NULL,
+    email VARCHAR(512) NOT NULL UNIQUE
+);
+
+CREATE TABLE categories
+(
+    id   INTEGER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE events
+(
+    id                 BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    annotation         VARCHAR(2000) NOT NULL,
+    category           INTEGER REFERENCES categories (id) ON DELETE RESTRICT,
+    created_on         TIMESTAMP WITHOUT TIME ZONE,
+    description        VARCHAR,
+    event_date         TIMESTAMP WITHOUT TIME ZONE,
+    initiator          BIGINT REFERENCES users (id) ON DELETE CASCADE,
+    lat                REAL          NOT NULL,
+    lon                REAL          NOT NULL,
+    paid               BOOLEAN       NOT NULL,
+    participant_limit  INTEGER       NOT NULL,
+    published_on       TIMESTAMP WITHOUT TIME ZONE,
+    request_moderation BOOLEAN       NOT NULL,
+    state              VARCHAR(50)   NOT NULL,
+    title              VARCHAR(255)  NOT NULL
+);
+
+CREATE TABLE requests
+(
+    id        BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    event     BIGINT REFERENCES events (id) ON DELETE CASCADE,
+    requester BIGINT REFERENCES users (id) ON DELETE CASCADE,
+    created   TIMESTAMP WITHOUT TIME ZONE,
+    status    VARCHAR(50) NOT NULL,
+
+    CONSTRAINT uniqueRequest UNIQUE (event, requester)
+);
+
+CREATE TABLE compilations
+(
+    id     INTEGER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    title  VARCHAR(255) NOT NULL UNIQUE,
+    pinned BOOLEAN      NOT NULL
+);
+
+CREATE TABLE compilation_events
+(
+    compilation_id INTEGER REFERENCES compilations (id) ON DELETE CASCADE,
+    event_id       BIGINT REFERENCES events (id) ON DELETE CASCADE,
+
+    CONSTRAINT uniqueCompilationEvent UNIQUE (compilation_id, event_id)
+);
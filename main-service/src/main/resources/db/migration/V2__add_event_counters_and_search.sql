@@ -0,0 +1,29 @@
+-- Views synced from the stats server, so public search can sort by them in SQL
+ALTER TABLE events
+    ADD COLUMN views BIGINT NOT NULL DEFAULT 0;
+
+-- Confirmed requests kept on the event instead of counted per read
+ALTER TABLE events
+    ADD COLUMN confirmed_requests BIGINT NOT NULL DEFAULT 0;
+
+-- 0.1 degree grid cell of the location, a cheap prefilter for radius and bounding-box search
+ALTER TABLE events
+    ADD COLUMN geo_cell BIGINT GENERATED ALWAYS AS (
+        LEAST(FLOOR((lat::DOUBLE PRECISION + 90) * 10), 1799)::BIGINT * 3600
+            + LEAST(FLOOR((lon::DOUBLE PRECISION + 180) * 10), 3599)::BIGINT) STORED;
+
+-- Events created before the counter existed
+UPDATE events e
+SET confirmed_requests = r.confirmed
+FROM (SELECT event, COUNT(*) AS confirmed FROM requests WHERE status = 'CONFIRMED' GROUP BY event) r
+WHERE e.id = r.event
+  AND e.confirmed_requests <> r.confirmed;
+
+CREATE FUNCTION event_search_vector(title TEXT, annotation TEXT, description TEXT)
+    RETURNS TSVECTOR
+    LANGUAGE SQL
+    IMMUTABLE
+    PARALLEL SAFE AS
+'SELECT setweight(to_tsvector(''simple'', coalesce(title, '''')), ''A'')
+            || setweight(to_tsvector(''simple'', coalesce(annotation, '''')), ''B'')
+            || setweight(to_tsvector(''simple'', coalesce(description, '''')), ''C'')';
@@ -0,0 +1,34 @@
+-- CONCURRENTLY keeps events and requests writable while the indexes are built. Flyway runs such a
+-- migration outside a transaction, so it must contain nothing but these statements.
+
+-- Public search sorted by views or by event date
+CREATE INDEX CONCURRENTLY events_published_views_idx ON events (views DESC, id DESC) WHERE state = 'PUBLISHED';
+CREATE INDEX CONCURRENTLY events_published_event_date_idx ON events (event_date, id) WHERE state = 'PUBLISHED';
+
+-- Radius and bounding-box search over the grid cells
+CREATE INDEX CONCURRENTLY events_published_geo_cell_idx ON events (geo_cell) WHERE state = 'PUBLISHED';
+
+-- Full-text search and sort=RELEVANCE
+CREATE INDEX CONCURRENTLY events_search_idx ON events USING GIN (event_search_vector(title, annotation, description));
+
+-- Public search by category: category IN (...) AND event_date > ? AND state = 'PUBLISHED'
+CREATE INDEX CONCURRENTLY events_published_category_event_date_idx ON events (category, event_date)
+    WHERE state = 'PUBLISHED';
+
+-- Admin search: state IN (...) with an event_date range
+CREATE INDEX CONCURRENTLY events_state_event_date_idx ON events (state, event_date);
+
+-- Events of an initiator, newest first; also serves ON DELETE CASCADE from users
+CREATE INDEX CONCURRENTLY events_initiator_id_idx ON events (initiator, id);
+
+-- existsByCategoryId and the ON DELETE RESTRICT check from categories
+CREATE INDEX CONCURRENTLY events_category_idx ON events (category);
+
+-- Requests of an event in a status: confirming and rejecting pending requests
+CREATE INDEX CONCURRENTLY requests_event_status_idx ON requests (event, status);
+
+-- Requests of a user, and the confirmed ones released when the user is deleted
+CREATE INDEX CONCURRENTLY requests_requester_status_idx ON requests (requester, status);
+
+-- ON DELETE CASCADE from events; lookups by compilation_id use uniqueCompilationEvent
+CREATE INDEX CONCURRENTLY compilation_events_event_id_idx ON compilation_events (event_id);
@@ -0,0 +1,92 @@
+package ru.practicum.mainservice;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.*;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.*;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Runs the application against a throwaway PostgreSQL started once per JVM, migrated by Flyway like production.
+ * Every test starts with empty tables.
+ */
+@SpringBootTest
+public abstract class EmbeddedPostgresTest {
+    private static final EmbeddedPostgres POSTGRES = start();
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    protected EntityManagerFactory entityManagerFactory;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+    }
+
+    @BeforeEach
+    void cleanDatabase() {
+        jdbcTemplate.execute("TRUNCATE requests, compilation_events, compilations, events, users, categories " +
+                "RESTART IDENTITY CASCADE");
+        entityManagerFactory.getCache()
+                .evictAll();
+    }
+
+    protected long insertUser(String name) {
+        return jdbcTemplate.queryForObject("INSERT INTO users (name, email) VALUES (?, ?) RETURNING id", Long.class,
+                name, name + "@example.com");
+    }
+
+    protected int insertCategory(String name) {
+        return jdbcTemplate.queryForObject("INSERT INTO categories (name) VALUES (?) RETURNING id", Integer.class,
+                name);
+    }
+
+    protected long insertPublishedEvent(int categoryId, long initiatorId, int participantLimit,
+                                        boolean requestModeration) {
+        return jdbcTemplate.queryForObject("INSERT INTO events (annotation, category, created_on, description, " +
+                        "event_date, initiator, lat, lon, paid, participant_limit, published_on, request_moderation, " +
+                        "state, title) VALUES ('Annotation of the event', ?, now(), 'Description of the event', ?, ?, " +
+                        "55.75, 37.62, false, ?, now(), ?, 'PUBLISHED', 'Event') RETURNING id", Long.class,
+                categoryId, Timestamp.valueOf(LocalDateTime.now().plusDays(7)), initiatorId, participantLimit,
+                requestModeration);
+    }
+
+    protected long insertRequest(long eventId, long requesterId, String status) {
+        return jdbcTemplate.queryForObject("INSERT INTO requests (event, requester, created, status) " +
+                "VALUES (?, ?, now(), ?) RETURNING id", Long.class, eventId, requesterId, status);
+    }
+
+    protected long countConfirmedRequests(long eventId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM requests WHERE event = ? AND status = 'CONFIRMED'",
+                Long.class, eventId);
+    }
+
+    protected long confirmedRequestsCounter(long eventId) {
+        return jdbcTemplate.queryForObject("SELECT confirmed_requests FROM events WHERE id = ?", Long.class, eventId);
+    }
+
+    private static EmbeddedPostgres start() {
+        try {
+            EmbeddedPostgres postgres = EmbeddedPostgres.start();
+            Runtime.getRuntime()
+                    .addShutdownHook(new Thread(() -> {
+                        try {
+                            postgres.close();
+                        } catch (IOException ignored) {
+                            // The process is going away anyway
+                        }
+                    }));
+            return postgres;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package ru.practicum.mainservice.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.mainservice.EmbeddedPostgresTest;
+import ru.practicum.mainservice.pagination.KeysetCursor;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * The next cursor is sent only when there is a next page and only for sorts that accept it back.
+ */
+@AutoConfigureMockMvc
+class NextCursorTest extends EmbeddedPostgresTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void insertEvents() {
+        int categoryId = insertCategory("Concerts");
+        long initiatorId = insertUser("initiator");
+        for (int i = 0; i < 4; i++) {
+            insertPublishedEvent(categoryId, initiatorId, 0, false);
+        }
+    }
+
+    @Test
+    void exactlyFullLastPageHasNoCursor() throws Exception {
+        String cursor = mockMvc.perform(get("/events").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(header().exists(KeysetCursor.NEXT_CURSOR_HEADER))
+                .andReturn()
+                .getResponse()
+                .getHeader(KeysetCursor.NEXT_CURSOR_HEADER);
+
+        mockMvc.perform(get("/events").param("size", "2").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(header().doesNotExist(KeysetCursor.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void eventDateSortHasCursor() throws Exception {
+        mockMvc.perform(get("/events").param("size", "2").param("sort", "EVENT_DATE"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(KeysetCursor.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void sortsWithoutCursorSupportHaveNoCursor() throws Exception {
+        mockMvc.perform(get("/events").param("size", "2").param("sort", "VIEWS"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(header().doesNotExist(KeysetCursor.NEXT_CURSOR_HEADER));
+
+        mockMvc.perform(get("/events").param("size", "2").param("sort", "RELEVANCE").param("text", "event"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(header().doesNotExist(KeysetCursor.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void usersCursorStopsAtTheLastPage() throws Exception {
+        mockMvc.perform(get("/admin/users").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(KeysetCursor.NEXT_CURSOR_HEADER));
+    }
+}
@@ -0,0 +1,36 @@
+package ru.practicum.mainservice.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.mainservice.EmbeddedPostgresTest;
+
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * A page sorted by views shows the synced views it is ordered by. The stats server is unreachable in tests, so
+ * live totals would all be zero.
+ */
+@AutoConfigureMockMvc
+class ViewsSortTest extends EmbeddedPostgresTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void viewsSortShowsTheViewsItIsOrderedBy() throws Exception {
+        int categoryId = insertCategory("Concerts");
+        long initiatorId = insertUser("initiator");
+        for (long views : new long[]{5, 30, 12}) {
+            long eventId = insertPublishedEvent(categoryId, initiatorId, 0, false);
+            jdbcTemplate.update("UPDATE events SET views = ? WHERE id = ?", views, eventId);
+        }
+
+        mockMvc.perform(get("/events").param("sort", "VIEWS"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].views", contains(30, 12, 5)));
+    }
+}
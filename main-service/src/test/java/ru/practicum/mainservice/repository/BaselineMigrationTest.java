@@ -0,0 +1,147 @@
+package ru.practicum.mainservice.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.flyway.FlywayProperties;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import ru.practicum.mainservice.EmbeddedPostgresTest;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Upgrades a database created by the schema.sql the service ran before Flyway: Flyway must baseline it at V1 and
+ * apply the later migrations, ending with the same tables and indexes as a fresh database and with the counters
+ * of existing events backfilled. The old database is built in its own schema next to the fresh one.
+ */
+class BaselineMigrationTest extends EmbeddedPostgresTest {
+    private static final String SCHEMA = "baseline";
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    private FlywayProperties flywayProperties;
+
+    // Unpooled: the script and Flyway switch the search path of their connections
+    private DataSource dataSource;
+    private long eventWithRequestsId;
+    private long eventWithoutRequestsId;
+
+    @BeforeEach
+    void createBaselineDatabase() throws SQLException {
+        dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(SimpleDriverDataSource.class)
+                .build();
+        jdbcTemplate.execute("CREATE SCHEMA " + SCHEMA);
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setSchema(SCHEMA);
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/baseline/schema.sql"));
+        }
+
+        long initiatorId = insertBaselineUser("initiator");
+        int categoryId = jdbcTemplate.queryForObject("INSERT INTO baseline.categories (name) VALUES ('Concerts') " +
+                "RETURNING id", Integer.class);
+        eventWithRequestsId = insertBaselineEvent(categoryId, initiatorId);
+        eventWithoutRequestsId = insertBaselineEvent(categoryId, initiatorId);
+        insertBaselineRequest(eventWithRequestsId, insertBaselineUser("first"), "CONFIRMED");
+        insertBaselineRequest(eventWithRequestsId, insertBaselineUser("second"), "CONFIRMED");
+        insertBaselineRequest(eventWithRequestsId, insertBaselineUser("third"), "PENDING");
+    }
+
+    @AfterEach
+    void dropBaselineDatabase() {
+        jdbcTemplate.execute("DROP SCHEMA " + SCHEMA + " CASCADE");
+    }
+
+    @Test
+    void migrateBaselinesAtV1AndAppliesTheRest() {
+        migrate();
+
+        List<String> versions = jdbcTemplate.queryForList("SELECT version || ':' || type FROM " + SCHEMA +
+                ".flyway_schema_history WHERE success ORDER BY installed_rank", String.class);
+
+        assertThat(versions).containsExactly("1:BASELINE", "2:SQL", "3:SQL");
+    }
+
+    @Test
+    void migrateEndsWithTheSchemaOfAFreshDatabase() {
+        migrate();
+
+        assertThat(columns(SCHEMA)).isEqualTo(columns("public"));
+        assertThat(indexes(SCHEMA)).isEqualTo(indexes("public"));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_index i " +
+                "JOIN pg_class c ON c.oid = i.indexrelid JOIN pg_namespace n ON n.oid = c.relnamespace " +
+                "WHERE n.nspname = ? AND NOT i.indisvalid", Long.class, SCHEMA)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_proc p " +
+                "JOIN pg_namespace n ON n.oid = p.pronamespace WHERE n.nspname = ? " +
+                "AND p.proname = 'event_search_vector'", Long.class, SCHEMA)).isOne();
+    }
+
+    @Test
+    void migrateBackfillsCountersOfExistingEvents() {
+        migrate();
+
+        assertThat(baselineEventColumn(eventWithRequestsId, "confirmed_requests")).isEqualTo(2L);
+        assertThat(baselineEventColumn(eventWithoutRequestsId, "confirmed_requests")).isZero();
+        assertThat(baselineEventColumn(eventWithRequestsId, "views")).isZero();
+        assertThat(baselineEventColumn(eventWithRequestsId, "geo_cell")).isNotNull();
+    }
+
+    private void migrate() {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .schemas(SCHEMA)
+                .locations(flywayProperties.getLocations().toArray(String[]::new))
+                .baselineOnMigrate(flywayProperties.isBaselineOnMigrate())
+                .baselineVersion(flywayProperties.getBaselineVersion())
+                .load()
+                .migrate();
+    }
+
+    private List<String> columns(String schema) {
+        return jdbcTemplate.queryForList("SELECT table_name || '.' || column_name || ' ' || data_type || ' ' || " +
+                "is_nullable || ' ' || coalesce(column_default, '') || ' ' || coalesce(generation_expression, '') " +
+                "FROM information_schema.columns WHERE table_schema = ? AND table_name <> 'flyway_schema_history' " +
+                "ORDER BY table_name, column_name", String.class, schema);
+    }
+
+    private List<String> indexes(String schema) {
+        return jdbcTemplate.queryForList("SELECT replace(indexdef, schemaname || '.', '') FROM pg_indexes " +
+                "WHERE schemaname = ? AND tablename <> 'flyway_schema_history' ORDER BY indexname", String.class,
+                schema);
+    }
+
+    private Long baselineEventColumn(long eventId, String column) {
+        return jdbcTemplate.queryForObject("SELECT " + column + " FROM " + SCHEMA + ".events WHERE id = ?",
+                Long.class, eventId);
+    }
+
+    private long insertBaselineUser(String name) {
+        return jdbcTemplate.queryForObject("INSERT INTO baseline.users (name, email) VALUES (?, ?) RETURNING id",
+                Long.class, name, name + "@example.com");
+    }
+
+    private long insertBaselineEvent(int categoryId, long initiatorId) {
+        return jdbcTemplate.queryForObject("INSERT INTO baseline.events (annotation, category, created_on, " +
+                "description, event_date, initiator, lat, lon, paid, participant_limit, published_on, " +
+                "request_moderation, state, title) VALUES ('Annotation of the event', ?, now(), " +
+                "'Description of the event', now() + INTERVAL '7 days', ?, 55.75, 37.62, false, 0, now(), true, " +
+                "'PUBLISHED', 'Event') RETURNING id", Long.class, categoryId, initiatorId);
+    }
+
+    private void insertBaselineRequest(long eventId, long requesterId, String status) {
+        jdbcTemplate.update("INSERT INTO baseline.requests (event, requester, created, status) " +
+                "VALUES (?, ?, now(), ?)", eventId, requesterId, status);
+    }
+}
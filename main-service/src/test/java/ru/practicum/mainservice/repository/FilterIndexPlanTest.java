@@ -0,0 +1,85 @@
+package ru.practicum.mainservice.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.mainservice.EmbeddedPostgresTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the planner picks the filter indexes of V3 for the query shapes they were added for, on a table
+ * big enough that a sequential scan would lose. Guards against a migration or query change that silently drops
+ * back to full scans.
+ */
+class FilterIndexPlanTest extends EmbeddedPostgresTest {
+    private static final int CATEGORIES = 5_000;
+    private static final int USERS = 2_000;
+    private static final int EVENTS = 50_000;
+    private static final int REQUESTS = 100_000;
+
+    @BeforeEach
+    void fillDatabase() {
+        jdbcTemplate.update("INSERT INTO categories (name) SELECT 'category' || i FROM generate_series(1, ?) i",
+                CATEGORIES);
+        jdbcTemplate.update("INSERT INTO users (name, email) " +
+                "SELECT 'user' || i, 'user' || i || '@example.com' FROM generate_series(1, ?) i", USERS);
+        // One event in a hundred waits for moderation; event dates spread over the past and the next year
+        jdbcTemplate.update("INSERT INTO events (annotation, category, created_on, description, event_date, " +
+                "initiator, lat, lon, paid, participant_limit, published_on, request_moderation, state, title) " +
+                "SELECT 'Annotation of the event', 1 + i % ?, now(), 'Description of the event', " +
+                "now() + (i % 730 - 365) * INTERVAL '1 day', 1 + i % ?, 55.75, 37.62, false, 0, now(), true, " +
+                "CASE i % 100 WHEN 0 THEN 'PENDING' ELSE 'PUBLISHED' END, 'Event' " +
+                "FROM generate_series(1, ?) i", CATEGORIES, USERS, EVENTS);
+        jdbcTemplate.update("INSERT INTO requests (event, requester, created, status) " +
+                "SELECT 1 + i % ?, 1 + i / ? % ?, now(), CASE i % 4 WHEN 0 THEN 'PENDING' ELSE 'CONFIRMED' END " +
+                "FROM generate_series(1, ?) i", EVENTS, EVENTS, USERS, REQUESTS);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void migrationsAreApplied() {
+        List<String> versions = jdbcTemplate.queryForList("SELECT version FROM flyway_schema_history " +
+                "WHERE success ORDER BY installed_rank", String.class);
+
+        assertThat(versions).containsSubsequence("1", "2", "3");
+    }
+
+    @Test
+    void publicSearchByCategoryUsesPublishedCategoryIndex() {
+        assertThat(explain("SELECT * FROM events WHERE state = 'PUBLISHED' AND category IN (3, 7) " +
+                "AND event_date > now() ORDER BY event_date, id LIMIT 10"))
+                .contains("events_published_category_event_date_idx");
+    }
+
+    @Test
+    void adminSearchByStateUsesStateIndex() {
+        assertThat(explain("SELECT * FROM events WHERE state IN ('PENDING', 'CANCELED') " +
+                "AND event_date BETWEEN now() AND now() + INTERVAL '30 days' ORDER BY id DESC LIMIT 10"))
+                .contains("events_state_event_date_idx");
+    }
+
+    @Test
+    void eventsOfInitiatorUseInitiatorIndex() {
+        assertThat(explain("SELECT * FROM events WHERE initiator = 42 ORDER BY id DESC LIMIT 10"))
+                .contains("events_initiator_id_idx");
+    }
+
+    @Test
+    void requestsOfEventsInStatusUseEventStatusIndex() {
+        assertThat(explain("SELECT * FROM requests WHERE event IN (5, 6, 7) AND status = 'CONFIRMED'"))
+                .contains("requests_event_status_idx");
+    }
+
+    @Test
+    void confirmedRequestsOfRequesterUseRequesterStatusIndex() {
+        assertThat(explain("SELECT event, COUNT(*) FROM requests WHERE requester = 42 AND status = 'CONFIRMED' " +
+                "GROUP BY event"))
+                .contains("requests_requester_status_idx");
+    }
+
+    private String explain(String query) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + query, String.class));
+    }
+}
@@ -0,0 +1,42 @@
+package ru.practicum.mainservice.service;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+final class Concurrently {
+    private Concurrently() {
+    }
+
+    /**
+     * Starts every task on its own thread at the same moment and waits for all of them.
+     */
+    static void run(List<Runnable> tasks) throws Exception {
+        run(tasks, tasks.size());
+    }
+
+    /**
+     * Runs the tasks on {@code threads} threads, all released at the same moment, and waits for all of them.
+     */
+    static void run(List<Runnable> tasks, int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Runnable task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package ru.practicum.mainservice.service;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.mainservice.EmbeddedPostgresTest;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Listings must read their events, categories and initiators in a constant number of statements, however many
+ * events (each with its own category and initiator here) end up on the page.
+ */
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+class ListingQueryCountTest extends EmbeddedPostgresTest {
+    private static final int FEW = 2;
+    private static final int MANY = 8;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private CompilationService compilationService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class)
+                .getStatistics();
+    }
+
+    @Test
+    void adminEventSearchDoesNotGrowWithPageSize() {
+        assertConstantStatements(() -> eventService.getEventsAdminApi(List.of(), List.of(), List.of(), null, null,
+                        0, MANY, null)
+                .getNumberOfElements());
+    }
+
+    @Test
+    void publicEventSearchDoesNotGrowWithPageSize() {
+        assertConstantStatements(() -> eventService.getEventsPublicApi("", List.of(), null, null, null, false, "",
+                        0, MANY, null, null)
+                .getNumberOfElements());
+    }
+
+    @Test
+    void compilationsDoNotGrowWithTheirEvents() {
+        jdbcTemplate.update("INSERT INTO compilations (title, pinned) VALUES ('Compilation', true)");
+
+        assertConstantStatements(() -> {
+            jdbcTemplate.update("INSERT INTO compilation_events (compilation_id, event_id) " +
+                    "SELECT c.id, e.id FROM compilations c CROSS JOIN events e ON CONFLICT DO NOTHING");
+            return compilationService.getCompilations(null, 0, 10, null)
+                    .getContent()
+                    .get(0)
+                    .getEvents()
+                    .size();
+        });
+    }
+
+    /**
+     * Runs the listing over {@value #FEW} and then {@value #MANY} events; it returns how many events it listed.
+     */
+    private void assertConstantStatements(Supplier<Integer> listing) {
+        insertEvents(FEW);
+        long withFew = countStatements(listing, FEW);
+
+        insertEvents(MANY - FEW);
+        long withMany = countStatements(listing, MANY);
+
+        assertThat(withMany).isEqualTo(withFew);
+    }
+
+    private long countStatements(Supplier<Integer> listing, int expectedEvents) {
+        // Second-level cache hits would hide per-row lookups
+        entityManagerFactory.getCache()
+                .evictAll();
+        statistics.clear();
+
+        // Like open-in-view does for requests, so lazy loads run as extra statements instead of failing
+        Integer listed = transactionTemplate.execute(status -> listing.get());
+
+        assertThat(listed).isEqualTo(expectedEvents);
+        assertThat(statistics.getPrepareStatementCount()).isPositive();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void insertEvents(int count) {
+        for (int i = 0; i < count; i++) {
+            String suffix = String.valueOf(System.nanoTime());
+            insertPublishedEvent(insertCategory("Category " + suffix), insertUser("user" + suffix), 0, false);
+        }
+    }
+}
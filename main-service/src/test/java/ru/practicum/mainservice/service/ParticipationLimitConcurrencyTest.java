@@ -0,0 +1,50 @@
+package ru.practicum.mainservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.practicum.mainservice.EmbeddedPostgresTest;
+import ru.practicum.mainservice.exception.ConflictException;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fires a thousand participation requests at an event with few places from more threads than the connection pool
+ * has connections: exactly the limit must be confirmed.
+ */
+class ParticipationLimitConcurrencyTest extends EmbeddedPostgresTest {
+    private static final int REQUESTERS = 1_000;
+    private static final int LIMIT = 50;
+    // Five times the default Hikari pool of 10, so requests also queue for connections
+    private static final int THREADS = 50;
+
+    @Autowired
+    private RequestService requestService;
+
+    @Test
+    void concurrentRequestsNeverExceedTheLimit() throws Exception {
+        long eventId = insertPublishedEvent(insertCategory("Concerts"), insertUser("initiator"), LIMIT, false);
+        List<Long> requesters = new ArrayList<>();
+        for (int i = 0; i < REQUESTERS; i++) {
+            requesters.add(insertUser("requester" + i));
+        }
+
+        AtomicInteger rejected = new AtomicInteger();
+        Concurrently.run(requesters.stream()
+                .map(userId -> (Runnable) () -> {
+                    try {
+                        requestService.createRequest(userId, eventId);
+                    } catch (ConflictException e) {
+                        rejected.incrementAndGet();
+                    }
+                })
+                .collect(Collectors.toList()), THREADS);
+
+        assertThat(rejected).hasValue(REQUESTERS - LIMIT);
+        assertThat(countConfirmedRequests(eventId)).isEqualTo(LIMIT);
+        assertThat(confirmedRequestsCounter(eventId)).isEqualTo(LIMIT);
+    }
+}
@@ -0,0 +1,77 @@
+package ru.practicum.mainservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.practicum.mainservice.EmbeddedPostgresTest;
+import ru.practicum.mainservice.dto.request.RequestStatusUpdateRequestDto;
+import ru.practicum.mainservice.dto.request.StatusOfUpdateRequest;
+import ru.practicum.mainservice.exception.*;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Confirms overlapping batches of pending requests at once: the event must never get more than its limit.
+ */
+class RequestModerationConcurrencyTest extends EmbeddedPostgresTest {
+    private static final int PENDING = 24;
+    private static final int BATCH = 8;
+    private static final int MODERATORS = 12;
+    private static final int LIMIT = 5;
+
+    @Autowired
+    private RequestService requestService;
+
+    @Test
+    void concurrentConfirmationsNeverExceedTheLimit() throws Exception {
+        long initiatorId = insertUser("initiator");
+        long eventId = insertPublishedEvent(insertCategory("Concerts"), initiatorId, LIMIT, true);
+        List<Long> requestIds = new ArrayList<>();
+        for (int i = 0; i < PENDING; i++) {
+            requestIds.add(insertRequest(eventId, insertUser("requester" + i), "PENDING"));
+        }
+
+        AtomicInteger rejected = new AtomicInteger();
+        List<Runnable> moderators = new ArrayList<>();
+        for (int i = 0; i < MODERATORS; i++) {
+            List<Long> batch = new ArrayList<>(requestIds.subList(i, i + BATCH));
+            Collections.shuffle(batch);
+            moderators.add(() -> {
+                try {
+                    requestService.updateRequestsStatus(initiatorId, eventId, RequestStatusUpdateRequestDto.builder()
+                            .requestIds(batch)
+                            .status(StatusOfUpdateRequest.CONFIRMED)
+                            .build());
+                } catch (ConflictException e) {
+                    rejected.incrementAndGet();
+                }
+            });
+        }
+        Concurrently.run(moderators);
+
+        assertThat(rejected.get()).isPositive();
+        assertThat(countConfirmedRequests(eventId)).isEqualTo(LIMIT);
+        assertThat(confirmedRequestsCounter(eventId)).isEqualTo(LIMIT);
+    }
+
+    @Test
+    void requestsOfAnotherEventAreNotFound() {
+        long initiatorId = insertUser("initiator");
+        int categoryId = insertCategory("Concerts");
+        long eventId = insertPublishedEvent(categoryId, initiatorId, LIMIT, true);
+        long otherEventId = insertPublishedEvent(categoryId, insertUser("other initiator"), LIMIT, true);
+        long ownRequestId = insertRequest(eventId, insertUser("requester"), "PENDING");
+        long foreignRequestId = insertRequest(otherEventId, insertUser("other requester"), "CONFIRMED");
+
+        assertThatThrownBy(() -> requestService.updateRequestsStatus(initiatorId, eventId,
+                RequestStatusUpdateRequestDto.builder()
+                        .requestIds(List.of(ownRequestId, foreignRequestId))
+                        .status(StatusOfUpdateRequest.CONFIRMED)
+                        .build()))
+                .isInstanceOf(NotFoundException.class);
+        assertThat(countConfirmedRequests(eventId)).isZero();
+    }
+}
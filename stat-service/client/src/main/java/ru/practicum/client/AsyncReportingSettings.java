@@ -0,0 +1,27 @@
+package ru.practicum.client;
+
+import lombok.*;
+
+@Getter
+@Builder
+public class AsyncReportingSettings {
+    @Builder.Default
+    private final int capacity = 10000;
+
+    @Builder.Default
+    private final int batchSize = 200;
+
+    @Builder.Default
+    private final long lingerMs = 500;
+
+    @Builder.Default
+    private final OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+    @Builder.Default
+    private final long blockTimeoutMs = 50;
+
+    public enum OverflowPolicy {
+        DROP,
+        BLOCK
+    }
+}
@@ -0,0 +1,73 @@
+package ru.practicum.client;
+
+import io.micrometer.core.instrument.*;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+
+/**
+ * Opens after {@code failureThreshold} consecutive failures and rejects calls for {@code openDuration}.
+ * Then a single probe call is let through (half-open): its success closes the breaker, its failure
+ * opens it for another {@code openDuration}.
+ */
+@Slf4j
+class CircuitBreaker {
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final Counter rejectedCalls;
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+
+    CircuitBreaker(int failureThreshold, Duration openDuration, MeterRegistry meterRegistry) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.rejectedCalls = meterRegistry.counter("stats.client.breaker.rejected");
+        // 0 - closed, 1 - open, 2 - half-open
+        Gauge.builder("stats.client.breaker.state", this, breaker -> breaker.getState()
+                        .ordinal())
+                .register(meterRegistry);
+    }
+
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            transitionTo(State.HALF_OPEN);
+            return true;
+        }
+        if (state != State.CLOSED) {
+            rejectedCalls.increment();
+            return false;
+        }
+        return true;
+    }
+
+    synchronized void onSuccess() {
+        failures = 0;
+        if (state != State.CLOSED) {
+            transitionTo(State.CLOSED);
+        }
+    }
+
+    synchronized void onFailure() {
+        failures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && failures >= failureThreshold)) {
+            openedAt = System.nanoTime();
+            transitionTo(State.OPEN);
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    private void transitionTo(State next) {
+        log.warn("Stats server circuit breaker {} -> {}", state, next);
+        state = next;
+    }
+}
@@ -0,0 +1,128 @@
+package ru.practicum.client;
+
+import io.micrometer.core.instrument.*;
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.dto.EndpointHitRequestDto;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Queues hits and sends them from a background thread in batches of up to {@code batchSize},
+ * waiting at most {@code lingerMs} for a batch to fill. When the queue is full a hit is dropped
+ * right away, or with {@link AsyncReportingSettings.OverflowPolicy#BLOCK} after waiting up to
+ * {@code blockTimeoutMs} for space.
+ */
+@Slf4j
+class HitReporter implements AutoCloseable {
+    private final BlockingQueue<EndpointHitRequestDto> queue;
+    private final Consumer<List<EndpointHitRequestDto>> sender;
+    private final AsyncReportingSettings settings;
+    private final Counter droppedHits;
+    private final Counter sentHits;
+    private final Timer sendLatency;
+    private final Thread senderThread;
+    private volatile boolean running = true;
+
+    HitReporter(Consumer<List<EndpointHitRequestDto>> sender, AsyncReportingSettings settings,
+                MeterRegistry meterRegistry) {
+        this.queue = new ArrayBlockingQueue<>(settings.getCapacity());
+        this.sender = sender;
+        this.settings = settings;
+        this.droppedHits = meterRegistry.counter("stats.client.hits.dropped");
+        this.sentHits = meterRegistry.counter("stats.client.hits.sent");
+        this.sendLatency = meterRegistry.timer("stats.client.send.latency");
+        Gauge.builder("stats.client.queue.depth", queue, Collection::size)
+                .register(meterRegistry);
+
+        senderThread = new Thread(this::sendLoop, "stat-client-hit-reporter");
+        senderThread.setDaemon(true);
+        senderThread.start();
+    }
+
+    void report(EndpointHitRequestDto hit) {
+        boolean queued;
+
+        if (settings.getOverflowPolicy() == AsyncReportingSettings.OverflowPolicy.BLOCK) {
+            try {
+                queued = queue.offer(hit, settings.getBlockTimeoutMs(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queued = false;
+            }
+        } else {
+            queued = queue.offer(hit);
+        }
+
+        if (!queued) {
+            droppedHits.increment();
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+
+        try {
+            senderThread.join(settings.getLingerMs() * 2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<EndpointHitRequestDto> rest = new ArrayList<>(settings.getBatchSize());
+        while (queue.drainTo(rest, settings.getBatchSize()) > 0) {
+            send(rest);
+        }
+    }
+
+    private void sendLoop() {
+        List<EndpointHitRequestDto> batch = new ArrayList<>(settings.getBatchSize());
+
+        while (running) {
+            try {
+                EndpointHitRequestDto hit = queue.poll(settings.getLingerMs(), TimeUnit.MILLISECONDS);
+                if (hit == null) {
+                    continue;
+                }
+
+                batch.add(hit);
+                long deadline = System.currentTimeMillis() + settings.getLingerMs();
+                while (batch.size() < settings.getBatchSize() && System.currentTimeMillis() < deadline) {
+                    queue.drainTo(batch, settings.getBatchSize() - batch.size());
+                    if (batch.size() < settings.getBatchSize()) {
+                        EndpointHitRequestDto next = queue.poll(deadline - System.currentTimeMillis(),
+                                TimeUnit.MILLISECONDS);
+                        if (next != null) {
+                            batch.add(next);
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            send(batch);
+        }
+
+        send(batch);
+    }
+
+    private void send(List<EndpointHitRequestDto> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            sendLatency.record(() -> sender.accept(batch));
+            sentHits.increment(batch.size());
+        } catch (RuntimeException e) {
+            log.warn("Failed to send {} hits to stats server: {}", batch.size(), e.getMessage());
+            droppedHits.increment(batch.size());
+        }
+        batch.clear();
+    }
+}
@@ -0,0 +1,70 @@
+package ru.practicum.client;
+
+import com.github.benmanes.caffeine.cache.*;
+import io.micrometer.core.instrument.*;
+import ru.practicum.dto.StatResponseDto;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Last successful answers of the stats server, served while it is unreachable. Stats are remembered per
+ * query, totals per uri, so any later set of uris can be answered from what is known about each of them.
+ */
+class LastKnownStats {
+    private final Cache<Object, List<StatResponseDto>> stats;
+    private final Cache<List<Object>, StatResponseDto> totals;
+    private final Counter fallbacks;
+
+    LastKnownStats(long maximumSize, MeterRegistry meterRegistry) {
+        this.stats = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+        this.totals = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+        this.fallbacks = meterRegistry.counter("stats.client.fallbacks");
+    }
+
+    void putStats(Object key, List<StatResponseDto> value) {
+        stats.put(key, value);
+    }
+
+    Optional<List<StatResponseDto>> getStats(Object key) {
+        Optional<List<StatResponseDto>> known = Optional.ofNullable(stats.getIfPresent(key));
+        known.ifPresent(value -> fallbacks.increment());
+        return known;
+    }
+
+    void putTotals(List<StatResponseDto> value, boolean unique) {
+        for (StatResponseDto total : value) {
+            totals.put(List.of(total.getUri(), unique), total);
+        }
+    }
+
+    List<StatResponseDto> getTotals(List<String> uris, boolean unique) {
+        List<StatResponseDto> known = findTotals(uris, unique);
+        if (!known.isEmpty()) {
+            fallbacks.increment();
+        }
+        return known;
+    }
+
+    private List<StatResponseDto> findTotals(List<String> uris, boolean unique) {
+        if (uris.isEmpty()) {
+            return totals.asMap()
+                    .entrySet()
+                    .stream()
+                    .filter(entry -> entry.getKey()
+                            .get(1)
+                            .equals(unique))
+                    .map(Map.Entry::getValue)
+                    .collect(Collectors.toList());
+        }
+
+        return uris.stream()
+                .map(uri -> totals.getIfPresent(List.of(uri, unique)))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,24 @@
+package ru.practicum.client;
+
+import lombok.*;
+
+import java.time.Duration;
+
+@Getter
+@Builder
+public class ResilienceSettings {
+    @Builder.Default
+    private final Duration connectTimeout = Duration.ofSeconds(1);
+
+    @Builder.Default
+    private final Duration readTimeout = Duration.ofSeconds(2);
+
+    @Builder.Default
+    private final int failureThreshold = 5;
+
+    @Builder.Default
+    private final Duration openDuration = Duration.ofSeconds(10);
+
+    @Builder.Default
+    private final long lastKnownMaximumSize = 100000;
+}
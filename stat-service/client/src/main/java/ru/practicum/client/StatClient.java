@@ -1,41 +1,230 @@
 package ru.practicum.client;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.*;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.dto.EndpointHitRequestDto;
 import ru.practicum.dto.StatResponseDto;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
-public class StatClient {
+@Slf4j
+public class StatClient implements AutoCloseable {
     private final RestTemplate restTemplate;
+    private final HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory();
+    private HitReporter hitReporter;
+    private StatsCache statsCache;
+    private CircuitBreaker circuitBreaker;
+    private LastKnownStats lastKnownStats;
 
     public StatClient(String serverUrl, RestTemplateBuilder builder) {
         restTemplate = builder.uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl))
-                .requestFactory(HttpComponentsClientHttpRequestFactory::new)
+                .requestFactory(() -> requestFactory)
                 .build();
     }
 
+    /**
+     * Switches {@link #reportHit} to sending hits in background batches instead of one request per hit.
+     */
+    public void enableAsyncReporting(AsyncReportingSettings settings, MeterRegistry meterRegistry) {
+        hitReporter = new HitReporter(this::addHits, settings, meterRegistry);
+    }
+
+    /**
+     * Caches {@link #getStats} and {@link #getTotals} results for {@code ttl}, sharing in-flight requests
+     * between concurrent identical queries.
+     */
+    public void enableStatsCache(Duration ttl, long maximumSize, MeterRegistry meterRegistry) {
+        statsCache = new StatsCache(ttl, maximumSize, meterRegistry);
+    }
+
+    /**
+     * Bounds every request by connect and read timeouts and guards the server with a circuit breaker.
+     * While the server is unreachable, reads are answered with the last known stats and totals, and
+     * {@link #reportHit} drops hits instead of failing the caller.
+     */
+    public void enableResilience(ResilienceSettings settings, MeterRegistry meterRegistry) {
+        requestFactory.setConnectTimeout((int) settings.getConnectTimeout()
+                .toMillis());
+        requestFactory.setReadTimeout((int) settings.getReadTimeout()
+                .toMillis());
+        circuitBreaker = new CircuitBreaker(settings.getFailureThreshold(), settings.getOpenDuration(), meterRegistry);
+        lastKnownStats = new LastKnownStats(settings.getLastKnownMaximumSize(), meterRegistry);
+    }
+
+    /**
+     * Sends the hit right away, or queues it when asynchronous reporting is enabled.
+     */
+    public void reportHit(EndpointHitRequestDto requestDto) {
+        if (hitReporter != null) {
+            hitReporter.report(requestDto);
+            return;
+        }
+
+        try {
+            addHit(requestDto);
+        } catch (StatServerConnectException e) {
+            if (circuitBreaker == null) {
+                throw e;
+            }
+            log.debug("Hit to {} is not reported: {}", requestDto.getUri(), e.getMessage());
+        }
+    }
+
     public void addHit(EndpointHitRequestDto requestDto) {
-        restTemplate.exchange("/hit", HttpMethod.POST, new HttpEntity<>(requestDto), Void.class);
+        call(() -> restTemplate.exchange("/hit", HttpMethod.POST, new HttpEntity<>(requestDto), Void.class));
+    }
+
+    public void addHits(List<EndpointHitRequestDto> requestDtos) {
+        call(() -> restTemplate.exchange("/hits/batch", HttpMethod.POST, new HttpEntity<>(requestDtos), Void.class));
     }
 
     public List<StatResponseDto> getStats(String start, String end, List<String> uris, boolean unique) {
+        return getStats(start, end, uris, unique, false);
+    }
+
+    /**
+     * With {@code approx} set, unique counts are estimated from HyperLogLog sketches
+     * (about 0.8% standard error) instead of counting distinct IPs.
+     */
+    public List<StatResponseDto> getStats(String start, String end, List<String> uris, boolean unique, boolean approx) {
+        List<Object> key = List.of("stats", start, end, List.copyOf(uris), unique, approx);
+
+        if (statsCache != null) {
+            return statsCache.get(key, () -> loadStats(key, () -> fetchStats(start, end, uris, unique, approx)));
+        }
+
+        return loadStats(key, () -> fetchStats(start, end, uris, unique, approx));
+    }
+
+    /**
+     * All-time hits per uri, kept as running counters by the stats server.
+     */
+    public List<StatResponseDto> getTotals(List<String> uris, boolean unique) {
+        if (statsCache != null) {
+            return statsCache.get(List.of("totals", List.copyOf(uris), unique), () -> loadTotals(uris, unique));
+        }
+
+        return loadTotals(uris, unique);
+    }
+
+    /**
+     * All-time hits of every uri whose counter changed at or after {@code since}, not cached.
+     */
+    public List<StatResponseDto> getTotalsChangedSince(String since, boolean unique) {
+        Map<String, Object> params = Map.of(
+                "since", since,
+                "unique", unique
+        );
+
+        return call(() -> restTemplate.exchange("/stats/totals?since={since}&unique={unique}", HttpMethod.GET,
+                null, new ParameterizedTypeReference<List<StatResponseDto>>() {
+                }, params).getBody());
+    }
+
+    private List<StatResponseDto> loadStats(Object key, Supplier<List<StatResponseDto>> fetch) {
+        try {
+            List<StatResponseDto> stats = call(fetch);
+            if (lastKnownStats != null) {
+                lastKnownStats.putStats(key, stats);
+            }
+            return stats;
+        } catch (StatServerConnectException e) {
+            if (lastKnownStats == null) {
+                throw e;
+            }
+            return lastKnownStats.getStats(key)
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    private List<StatResponseDto> loadTotals(List<String> uris, boolean unique) {
+        try {
+            List<StatResponseDto> totals = call(() -> fetchTotals(uris, unique));
+            if (lastKnownStats != null) {
+                lastKnownStats.putTotals(totals, unique);
+            }
+            return totals;
+        } catch (StatServerConnectException e) {
+            if (lastKnownStats == null) {
+                throw e;
+            }
+            log.debug("Serving last known totals: {}", e.getMessage());
+            return lastKnownStats.getTotals(uris, unique);
+        }
+    }
+
+    /**
+     * Runs a request through the circuit breaker, if enabled. Only an answer of the server, a 4xx included,
+     * counts as a success; anything else, errors too, counts as a failure, so a half-open probe always
+     * reports back. I/O errors, timeouts and 5xx responses are rethrown as {@link StatServerConnectException}.
+     */
+    private <T> T call(Supplier<T> request) {
+        if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+            throw new StatServerConnectException("Stats server circuit breaker is open");
+        }
+
+        boolean succeeded = false;
+        try {
+            T result = request.get();
+            succeeded = true;
+            return result;
+        } catch (HttpClientErrorException e) {
+            // The server answered, so it is reachable; client errors are the caller's problem
+            succeeded = true;
+            throw e;
+        } catch (ResourceAccessException | HttpServerErrorException e) {
+            throw new StatServerConnectException("Stats server is unavailable: " + e.getMessage(), e);
+        } finally {
+            if (circuitBreaker != null) {
+                if (succeeded) {
+                    circuitBreaker.onSuccess();
+                } else {
+                    circuitBreaker.onFailure();
+                }
+            }
+        }
+    }
+
+    private List<StatResponseDto> fetchStats(String start, String end, List<String> uris, boolean unique,
+                                             boolean approx) {
         Map<String, Object> params = Map.of(
                 "start", start,
                 "end", end,
+                "uris", String.join(",", uris),
+                "unique", unique,
+                "approx", approx
+        );
+
+        return restTemplate.exchange("/stats?start={start}&end={end}&uris={uris}&unique={unique}&approx={approx}", HttpMethod.GET,
+                null, new ParameterizedTypeReference<List<StatResponseDto>>() {
+                }, params).getBody();
+    }
+
+    private List<StatResponseDto> fetchTotals(List<String> uris, boolean unique) {
+        Map<String, Object> params = Map.of(
                 "uris", String.join(",", uris),
                 "unique", unique
         );
 
-        return restTemplate.exchange("/stats?start={start}&end={end}&uris={uris}&unique={unique}", HttpMethod.GET,
+        return restTemplate.exchange("/stats/totals?uris={uris}&unique={unique}", HttpMethod.GET,
                 null, new ParameterizedTypeReference<List<StatResponseDto>>() {
                 }, params).getBody();
     }
+
+    @Override
+    public void close() {
+        if (hitReporter != null) {
+            hitReporter.close();
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package ru.practicum.client;
+
+/**
+ * The stats server could not be reached: an I/O error, a timeout, a 5xx response or an open circuit breaker.
+ */
+public class StatServerConnectException extends RuntimeException {
+    public StatServerConnectException(String message) {
+        super(message);
+    }
+
+    public StatServerConnectException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
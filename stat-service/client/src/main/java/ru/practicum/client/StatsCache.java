@@ -0,0 +1,55 @@
+package ru.practicum.client;
+
+import com.github.benmanes.caffeine.cache.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import ru.practicum.dto.StatResponseDto;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of stats queries. Concurrent identical queries share one in-flight request:
+ * the first caller loads the value and the others wait for its future. Failed loads are not cached.
+ */
+class StatsCache {
+    private final Cache<Object, CompletableFuture<List<StatResponseDto>>> cache;
+
+    StatsCache(Duration ttl, long maximumSize, MeterRegistry meterRegistry) {
+        cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "stats.client");
+    }
+
+    List<StatResponseDto> get(Object key, Supplier<List<StatResponseDto>> loader) {
+        CompletableFuture<List<StatResponseDto>> created = new CompletableFuture<>();
+        CompletableFuture<List<StatResponseDto>> future = cache.get(key, k -> created);
+
+        if (future == created) {
+            try {
+                created.complete(loader.get());
+            } catch (Throwable e) {
+                // Errors too: an uncompleted future would hang every waiter and keep the key until it expires
+                cache.asMap().remove(key, created);
+                created.completeExceptionally(e);
+            }
+        }
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.server.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.ConstraintViolationException;
+
+@Slf4j
+@RestControllerAdvice
+public class ErrorHandler {
+
+    // Raised by method validation, e.g. an empty or invalid /hits/batch body
+    @ExceptionHandler({ConstraintViolationException.class})
+    public ResponseEntity<Void> constraintViolationExceptionHandler(ConstraintViolationException e) {
+        log.warn("Rejected request: {}", e.getMessage());
+
+        return ResponseEntity.badRequest().build();
+    }
+}
@@ -3,14 +3,17 @@ package ru.practicum.server.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.*;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.dto.*;
 import ru.practicum.server.service.StatsService;
 
 import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
 import java.time.LocalDateTime;
 import java.util.List;
 
+@Validated
 @RequiredArgsConstructor
 @RestController
 public class StatServerController {
@@ -23,15 +26,29 @@ public class StatServerController {
         statService.addHit(requestDto);
     }
 
+    @PostMapping("/hits/batch")
+    @ResponseStatus(value = HttpStatus.CREATED)
+    public void addHits(@RequestBody @NotEmpty List<@Valid EndpointHitRequestDto> requestDtos) {
+        statService.addHits(requestDtos);
+    }
+
     @GetMapping("/stats")
     public ResponseEntity<List<StatResponseDto>> getStats(@RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
                                                          @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
                                                          @RequestParam(defaultValue = "") List<String> uris,
-                                                         @RequestParam(defaultValue = "false") boolean unique) {
+                                                         @RequestParam(defaultValue = "false") boolean unique,
+                                                         @RequestParam(defaultValue = "false") boolean approx) {
         if (end.isBefore(start)) {
             return ResponseEntity.badRequest().build();
         }
 
-        return ResponseEntity.ok(statService.getStats(start, end, uris, unique));
+        return ResponseEntity.ok(statService.getStats(start, end, uris, unique, approx));
+    }
+
+    @GetMapping("/stats/totals")
+    public List<StatResponseDto> getTotals(@RequestParam(defaultValue = "") List<String> uris,
+                                           @RequestParam(defaultValue = "false") boolean unique,
+                                           @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime since) {
+        return statService.getTotals(uris, unique, since);
     }
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package ru.practicum.server.model;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+/**
+ * Key of a rollup or sketch row. The natural order matches the primary key, so batches
+ * sorted by it lock rows in the same order and concurrent writers cannot deadlock.
+ */
+@Value
+public class BucketKey implements Comparable<BucketKey> {
+    private static final Comparator<BucketKey> ORDER = Comparator.comparing(BucketKey::getUri)
+            .thenComparing(BucketKey::getBucket)
+            .thenComparing(BucketKey::getApp);
+
+    String app;
+    String uri;
+    LocalDateTime bucket;
+
+    @Override
+    public int compareTo(BucketKey other) {
+        return ORDER.compare(this, other);
+    }
+}
@@ -0,0 +1,16 @@
+package ru.practicum.server.model;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class BucketRange {
+    RollupGranularity granularity;
+    LocalDateTime from;
+    LocalDateTime to;
+
+    public boolean isRaw() {
+        return granularity == null;
+    }
+}
@@ -0,0 +1,78 @@
+package ru.practicum.server.model;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Bucket sizes of the pre-aggregated hit tables, ordered from the coarsest to the finest.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum RollupGranularity {
+    MONTH("month", ChronoUnit.MONTHS),
+    DAY("day", ChronoUnit.DAYS),
+    HOUR("hour", ChronoUnit.HOURS),
+    MINUTE("minute", ChronoUnit.MINUTES);
+
+    private final String suffix;
+    private final ChronoUnit unit;
+
+    public String getTable() {
+        return "endpoint_hits_" + suffix;
+    }
+
+    public String getSketchTable() {
+        return "endpoint_hits_hll_" + suffix;
+    }
+
+    public LocalDateTime floor(LocalDateTime dateTime) {
+        if (this == MONTH) {
+            return dateTime.toLocalDate()
+                    .withDayOfMonth(1)
+                    .atStartOfDay();
+        }
+        return dateTime.truncatedTo(unit);
+    }
+
+    public LocalDateTime ceil(LocalDateTime dateTime) {
+        LocalDateTime floor = floor(dateTime);
+        return floor.equals(dateTime) ? floor : floor.plus(1, unit);
+    }
+
+    /**
+     * Splits {@code [from, to)} into the coarsest whole buckets of the given granularities (coarsest first).
+     * Edges shorter than the finest granularity are returned as ranges without granularity.
+     */
+    public static List<BucketRange> cover(LocalDateTime from, LocalDateTime to, List<RollupGranularity> granularities) {
+        List<BucketRange> ranges = new ArrayList<>();
+        cover(from, to, granularities, 0, ranges);
+        return ranges;
+    }
+
+    private static void cover(LocalDateTime from, LocalDateTime to, List<RollupGranularity> granularities, int level,
+                              List<BucketRange> ranges) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+
+        if (level == granularities.size()) {
+            ranges.add(new BucketRange(null, from, to));
+            return;
+        }
+
+        RollupGranularity granularity = granularities.get(level);
+        LocalDateTime first = granularity.ceil(from);
+        LocalDateTime last = granularity.floor(to);
+
+        if (first.isBefore(last)) {
+            ranges.add(new BucketRange(granularity, first, last));
+            cover(from, first, granularities, level + 1, ranges);
+            cover(last, to, granularities, level + 1, ranges);
+        } else {
+            cover(from, to, granularities, level + 1, ranges);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.server.model;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Hours {@code [from, until)} whose sketches have been built from the raw hits. Once {@code backfilled},
+ * every hour before {@code until} is covered.
+ */
+@Value
+public class SketchCoverage {
+    LocalDateTime from;
+    LocalDateTime until;
+    boolean backfilled;
+
+    public boolean covers(LocalDateTime start) {
+        return backfilled || !start.isBefore(from);
+    }
+}
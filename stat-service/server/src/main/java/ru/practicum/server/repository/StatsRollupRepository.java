@@ -0,0 +1,102 @@
+package ru.practicum.server.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.*;
+import org.springframework.stereotype.Repository;
+import ru.practicum.server.model.*;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Minute, hour, day and month rollups of {@code endpoint_hits}. A range query is split into the coarsest
+ * buckets that fit into it, and only the edges shorter than a minute are counted from raw hits.
+ * <p>
+ * Rollups are not written on the hit path, where concurrent hits to a popular uri would queue on the same bucket
+ * rows: {@link ru.practicum.server.service.HitSketchMerger} rebuilds them from {@code endpoint_hits} together with
+ * the sketches. Hours not rolled up yet are read raw.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StatsRollupRepository {
+    // Sets the counts rebuilt from the raw hits, so re-running it for an hour that received late hits is safe
+    private static final String REBUILD_FROM_HITS = "INSERT INTO %1$s AS r (app, uri, bucket, hits) " +
+            "SELECT app, uri, date_trunc('%2$s', timestamp), COUNT(*) FROM endpoint_hits " +
+            "WHERE timestamp >= :from AND timestamp < :to GROUP BY app, uri, date_trunc('%2$s', timestamp) " +
+            "ON CONFLICT (uri, bucket, app) DO UPDATE SET hits = EXCLUDED.hits WHERE r.hits <> EXCLUDED.hits";
+    private static final String REBUILD_FROM_FINER = "INSERT INTO %1$s AS r (app, uri, bucket, hits) " +
+            "SELECT app, uri, date_trunc('%2$s', bucket), SUM(hits) FROM %3$s " +
+            "WHERE bucket >= :from AND bucket < :to GROUP BY app, uri, date_trunc('%2$s', bucket) " +
+            "ON CONFLICT (uri, bucket, app) DO UPDATE SET hits = EXCLUDED.hits WHERE r.hits <> EXCLUDED.hits";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Rebuilds the minute and hour rollups of the whole hours in {@code [from, to)} from the raw hits, then the
+     * days and months they fall into from the finer rollups.
+     */
+    public void rebuild(LocalDateTime from, LocalDateTime to) {
+        for (RollupGranularity granularity : List.of(RollupGranularity.MINUTE, RollupGranularity.HOUR)) {
+            jdbcTemplate.update(String.format(REBUILD_FROM_HITS, granularity.getTable(), granularity.getSuffix()),
+                    range(from, to));
+        }
+
+        jdbcTemplate.update(String.format(REBUILD_FROM_FINER, RollupGranularity.DAY.getTable(),
+                        RollupGranularity.DAY.getSuffix(), RollupGranularity.HOUR.getTable()),
+                range(RollupGranularity.DAY.floor(from), RollupGranularity.DAY.ceil(to)));
+        jdbcTemplate.update(String.format(REBUILD_FROM_FINER, RollupGranularity.MONTH.getTable(),
+                        RollupGranularity.MONTH.getSuffix(), RollupGranularity.DAY.getTable()),
+                range(RollupGranularity.MONTH.floor(from), RollupGranularity.MONTH.ceil(to)));
+    }
+
+    /**
+     * Counts all hits in {@code [start, end)} grouped by app and uri, most visited first. Hours from
+     * {@code rolledUntil} on are not rolled up yet and are read from the raw hits.
+     */
+    public List<StatHits> findAllStats(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                       LocalDateTime rolledUntil) {
+        List<BucketRange> ranges = new ArrayList<>();
+        if (start.isBefore(rolledUntil)) {
+            ranges.addAll(RollupGranularity.cover(start, end.isBefore(rolledUntil) ? end : rolledUntil,
+                    List.of(RollupGranularity.values())));
+        }
+        if (end.isAfter(rolledUntil)) {
+            ranges.add(new BucketRange(null, start.isAfter(rolledUntil) ? start : rolledUntil, end));
+        }
+        if (ranges.isEmpty()) {
+            return List.of();
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource("uris", uris);
+        String uriFilter = uris.isEmpty() ? "" : " AND uri IN (:uris)";
+        List<String> parts = new ArrayList<>();
+
+        for (int i = 0; i < ranges.size(); i++) {
+            BucketRange range = ranges.get(i);
+            params.addValue("from" + i, Timestamp.valueOf(range.getFrom()));
+            params.addValue("to" + i, Timestamp.valueOf(range.getTo()));
+
+            if (range.isRaw()) {
+                parts.add(String.format("SELECT app, uri, COUNT(*) AS hits FROM endpoint_hits " +
+                        "WHERE timestamp >= :from%1$d AND timestamp < :to%1$d%2$s GROUP BY app, uri", i, uriFilter));
+            } else {
+                parts.add(String.format("SELECT app, uri, SUM(hits) AS hits FROM %3$s " +
+                                "WHERE bucket >= :from%1$d AND bucket < :to%1$d%2$s GROUP BY app, uri", i, uriFilter,
+                        range.getGranularity().getTable()));
+            }
+        }
+
+        String sql = "SELECT app, uri, SUM(hits) AS hits FROM (" + String.join(" UNION ALL ", parts) + ") AS s " +
+                "GROUP BY app, uri ORDER BY hits DESC";
+
+        return jdbcTemplate.query(sql, params,
+                (rs, rowNum) -> new StatHits(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+    }
+
+    private static MapSqlParameterSource range(LocalDateTime from, LocalDateTime to) {
+        return new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+    }
+}
@@ -0,0 +1,9 @@
+package ru.practicum.server.repository;
+
+import ru.practicum.server.model.EndpointHit;
+
+import java.util.List;
+
+public interface StatsServerRepositoryCustom {
+    void saveAllInBatch(List<EndpointHit> hits);
+}
@@ -0,0 +1,37 @@
+package ru.practicum.server.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.server.model.EndpointHit;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Writes hits through plain JDBC batches: {@code endpoint_hits.id} is an identity column,
+ * so Hibernate would fall back to one INSERT per entity.
+ */
+@RequiredArgsConstructor
+public class StatsServerRepositoryImpl implements StatsServerRepositoryCustom {
+    private static final String INSERT_HIT = "INSERT INTO endpoint_hits (app, uri, ip, timestamp) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${stats.hits.batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public void saveAllInBatch(List<EndpointHit> hits) {
+        if (hits.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_HIT, hits, batchSize, (ps, hit) -> {
+            ps.setString(1, hit.getApp());
+            ps.setString(2, hit.getUri());
+            ps.setString(3, hit.getIp());
+            ps.setTimestamp(4, Timestamp.valueOf(hit.getTimestamp()));
+        });
+    }
+}
@@ -0,0 +1,217 @@
+package ru.practicum.server.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.*;
+import org.springframework.stereotype.Repository;
+import ru.practicum.server.model.*;
+import ru.practicum.server.sketch.HyperLogLog;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * HyperLogLog sketches of visitor IPs per app, uri and hour/day/month bucket. Unique counts for a range
+ * merge the sketches of the whole buckets inside it with the IPs of the sub-hour edges.
+ * <p>
+ * Sketches are not written on the hit path: {@link ru.practicum.server.service.HitSketchMerger} rebuilds
+ * the hours that ended since its previous run from {@code endpoint_hits}. Hours not sketched yet are read raw.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StatsSketchRepository {
+    public static final List<RollupGranularity> GRANULARITIES = List.of(RollupGranularity.MONTH,
+            RollupGranularity.DAY, RollupGranularity.HOUR);
+
+    private static final String UPSERT_REGISTERS = "INSERT INTO %s (app, uri, bucket, registers) " +
+            "VALUES (:app, :uri, :bucket, :registers) " +
+            "ON CONFLICT (uri, bucket, app) DO UPDATE SET registers = EXCLUDED.registers";
+    private static final String SELECT_BUCKET = "SELECT app, uri, registers FROM %s WHERE bucket = :bucket";
+    private static final String SELECT_KEYS = "SELECT app, uri, registers FROM %s " +
+            "WHERE bucket = :bucket AND (uri, app) IN (:keys)";
+    private static final String UPSERT_COVERAGE = "INSERT INTO endpoint_hits_hll_coverage " +
+            "(id, covered_from, covered_until, backfilled) VALUES (1, :from, :until, :backfilled) " +
+            "ON CONFLICT (id) DO UPDATE SET covered_from = EXCLUDED.covered_from, " +
+            "covered_until = EXCLUDED.covered_until, backfilled = EXCLUDED.backfilled";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Rebuilds the hourly sketches of {@code hour} from the raw hits and merges the ones that changed into
+     * their day and month sketches. Registers only grow, so re-running it for an hour that received late hits
+     * is safe: taking the register-wise maximum again still yields the union.
+     */
+    public void rebuildHour(LocalDateTime hour) {
+        Map<AppUri, HyperLogLog> rebuilt = new HashMap<>();
+        jdbcTemplate.query("SELECT DISTINCT app, uri, ip FROM endpoint_hits " +
+                        "WHERE timestamp >= :from AND timestamp < :to",
+                new MapSqlParameterSource()
+                        .addValue("from", Timestamp.valueOf(hour))
+                        .addValue("to", Timestamp.valueOf(hour.plusHours(1))),
+                rs -> {
+                    rebuilt.computeIfAbsent(new AppUri(rs.getString("app"), rs.getString("uri")),
+                            key -> new HyperLogLog()).add(rs.getString("ip"));
+                });
+
+        Map<AppUri, byte[]> stored = new HashMap<>();
+        jdbcTemplate.query(String.format(SELECT_BUCKET, RollupGranularity.HOUR.getSketchTable()),
+                new MapSqlParameterSource("bucket", Timestamp.valueOf(hour)),
+                rs -> {
+                    stored.put(new AppUri(rs.getString("app"), rs.getString("uri")), rs.getBytes("registers"));
+                });
+
+        Map<AppUri, HyperLogLog> changed = new HashMap<>();
+        rebuilt.forEach((key, sketch) -> {
+            if (!Arrays.equals(sketch.toBytes(), stored.get(key))) {
+                changed.put(key, sketch);
+            }
+        });
+
+        save(RollupGranularity.HOUR, hour, changed);
+        mergeInto(RollupGranularity.DAY, RollupGranularity.DAY.floor(hour), changed);
+        mergeInto(RollupGranularity.MONTH, RollupGranularity.MONTH.floor(hour), changed);
+    }
+
+    public Optional<SketchCoverage> findCoverage() {
+        return jdbcTemplate.query("SELECT covered_from, covered_until, backfilled FROM endpoint_hits_hll_coverage",
+                        (rs, rowNum) -> new SketchCoverage(rs.getTimestamp("covered_from").toLocalDateTime(),
+                                rs.getTimestamp("covered_until").toLocalDateTime(), rs.getBoolean("backfilled")))
+                .stream()
+                .findFirst();
+    }
+
+    public void saveCoverage(SketchCoverage coverage) {
+        jdbcTemplate.update(UPSERT_COVERAGE, new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(coverage.getFrom()))
+                .addValue("until", Timestamp.valueOf(coverage.getUntil()))
+                .addValue("backfilled", coverage.isBackfilled()));
+    }
+
+    public Optional<LocalDateTime> findOldestHit() {
+        return Optional.ofNullable(jdbcTemplate.getJdbcTemplate()
+                        .queryForObject("SELECT MIN(timestamp) FROM endpoint_hits", Timestamp.class))
+                .map(Timestamp::toLocalDateTime);
+    }
+
+    /**
+     * Estimates unique IPs in {@code [start, end)} grouped by app and uri, most visited first. Hours from
+     * {@code sketchedUntil} on are not sketched yet and are read from the raw hits.
+     */
+    public List<StatHits> findUniqueStats(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                          LocalDateTime sketchedUntil) {
+        List<BucketRange> ranges = new ArrayList<>();
+        if (start.isBefore(sketchedUntil)) {
+            ranges.addAll(RollupGranularity.cover(start, end.isBefore(sketchedUntil) ? end : sketchedUntil,
+                    GRANULARITIES));
+        }
+        if (end.isAfter(sketchedUntil)) {
+            ranges.add(new BucketRange(null, start.isAfter(sketchedUntil) ? start : sketchedUntil, end));
+        }
+        if (ranges.isEmpty()) {
+            return List.of();
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource("uris", uris);
+        String uriFilter = uris.isEmpty() ? "" : " AND uri IN (:uris)";
+        List<String> parts = new ArrayList<>();
+
+        for (int i = 0; i < ranges.size(); i++) {
+            BucketRange range = ranges.get(i);
+            params.addValue("from" + i, Timestamp.valueOf(range.getFrom()));
+            params.addValue("to" + i, Timestamp.valueOf(range.getTo()));
+
+            if (range.isRaw()) {
+                parts.add(String.format("SELECT DISTINCT app, uri, CAST(NULL AS BYTEA) AS registers, ip " +
+                        "FROM endpoint_hits WHERE timestamp >= :from%1$d AND timestamp < :to%1$d%2$s", i, uriFilter));
+            } else {
+                parts.add(String.format("SELECT app, uri, registers, CAST(NULL AS VARCHAR) AS ip FROM %3$s " +
+                                "WHERE bucket >= :from%1$d AND bucket < :to%1$d%2$s", i, uriFilter,
+                        range.getGranularity().getSketchTable()));
+            }
+        }
+
+        Map<AppUri, HyperLogLog> merged = new HashMap<>();
+        jdbcTemplate.query(String.join(" UNION ALL ", parts), params, rs -> {
+            HyperLogLog sketch = merged.computeIfAbsent(new AppUri(rs.getString("app"), rs.getString("uri")),
+                    key -> new HyperLogLog());
+            String ip = rs.getString("ip");
+
+            if (ip != null) {
+                sketch.add(ip);
+            } else {
+                sketch.merge(HyperLogLog.fromBytes(rs.getBytes("registers")));
+            }
+        });
+
+        return merged.entrySet()
+                .stream()
+                .map(entry -> new StatHits(entry.getKey().getApp(), entry.getKey().getUri(), entry.getValue().estimate()))
+                .sorted(Comparator.comparingLong(StatHits::getHits).reversed())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Estimates the lifetime unique IPs of every app and uri sketched in the hours {@code [from, to)} by merging all
+     * of their month sketches.
+     */
+    public Map<AppUri, Long> estimateLifetimeUniqueHits(LocalDateTime from, LocalDateTime to) {
+        Map<AppUri, HyperLogLog> merged = new HashMap<>();
+        jdbcTemplate.query(String.format("SELECT app, uri, registers FROM %s WHERE (uri, app) IN " +
+                                "(SELECT uri, app FROM %s WHERE bucket >= :from AND bucket < :to)",
+                        RollupGranularity.MONTH.getSketchTable(), RollupGranularity.HOUR.getSketchTable()),
+                new MapSqlParameterSource()
+                        .addValue("from", Timestamp.valueOf(from))
+                        .addValue("to", Timestamp.valueOf(to)),
+                rs -> {
+                    merged.computeIfAbsent(new AppUri(rs.getString("app"), rs.getString("uri")),
+                            key -> new HyperLogLog()).merge(HyperLogLog.fromBytes(rs.getBytes("registers")));
+                });
+
+        return merged.entrySet()
+                .stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().estimate()));
+    }
+
+    private void mergeInto(RollupGranularity granularity, LocalDateTime bucket, Map<AppUri, HyperLogLog> sketches) {
+        if (sketches.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> keys = sketches.keySet()
+                .stream()
+                .map(key -> new Object[]{key.getUri(), key.getApp()})
+                .collect(Collectors.toList());
+        Map<AppUri, HyperLogLog> merged = new HashMap<>();
+        jdbcTemplate.query(String.format(SELECT_KEYS, granularity.getSketchTable()),
+                new MapSqlParameterSource()
+                        .addValue("bucket", Timestamp.valueOf(bucket))
+                        .addValue("keys", keys),
+                rs -> {
+                    merged.put(new AppUri(rs.getString("app"), rs.getString("uri")),
+                            HyperLogLog.fromBytes(rs.getBytes("registers")));
+                });
+
+        sketches.forEach((key, sketch) -> merged.computeIfAbsent(key, k -> new HyperLogLog())
+                .merge(sketch));
+        save(granularity, bucket, merged);
+    }
+
+    private void save(RollupGranularity granularity, LocalDateTime bucket, Map<AppUri, HyperLogLog> sketches) {
+        // Sorted like the primary key, see BucketKey
+        jdbcTemplate.batchUpdate(String.format(UPSERT_REGISTERS, granularity.getSketchTable()), sketches.entrySet()
+                .stream()
+                .map(entry -> new BucketKey(entry.getKey().getApp(), entry.getKey().getUri(), bucket))
+                .sorted()
+                .map(key -> toParams(key).addValue("registers",
+                        sketches.get(new AppUri(key.getApp(), key.getUri())).toBytes()))
+                .toArray(SqlParameterSource[]::new));
+    }
+
+    private static MapSqlParameterSource toParams(BucketKey key) {
+        return new MapSqlParameterSource()
+                .addValue("app", key.getApp())
+                .addValue("uri", key.getUri())
+                .addValue("bucket", Timestamp.valueOf(key.getBucket()));
+    }
+}
@@ -0,0 +1,90 @@
+package ru.practicum.server.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.*;
+import org.springframework.stereotype.Repository;
+import ru.practicum.server.model.*;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Lifetime hit and unique visitor counters per app and uri, so that all-time views are read in O(number of uris).
+ * <p>
+ * Counters are not written on the hit path: {@link ru.practicum.server.service.HitSketchMerger} refreshes those of
+ * the uris it has just rolled up, so they lag behind by up to {@code stats.sketch.merge-interval-ms}. Hits are
+ * summed from the month rollups. Unique visitors are estimated from the month sketches (see
+ * {@link ru.practicum.server.sketch.HyperLogLog} for the error); until the sketches are backfilled, an estimate
+ * only ever raises the exact count taken when the counters were created.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StatsTotalsRepository {
+    // clock_timestamp(): the merger's transaction may be long, and readers poll by updated_at
+    private static final String REFRESH_HITS = "INSERT INTO endpoint_hit_totals AS t (app, uri, hits, unique_hits) " +
+            "SELECT app, uri, SUM(hits), 0 FROM endpoint_hits_month " +
+            "WHERE (uri, app) IN (SELECT uri, app FROM endpoint_hits_hour WHERE bucket >= :from AND bucket < :to) " +
+            "GROUP BY app, uri ORDER BY uri, app " +
+            "ON CONFLICT (uri, app) DO UPDATE SET hits = EXCLUDED.hits, updated_at = clock_timestamp() " +
+            "WHERE t.hits <> EXCLUDED.hits";
+    private static final String SET_UNIQUE_HITS = "UPDATE endpoint_hit_totals " +
+            "SET unique_hits = :uniqueHits, updated_at = clock_timestamp() " +
+            "WHERE uri = :uri AND app = :app AND unique_hits <> :uniqueHits";
+    private static final String RAISE_UNIQUE_HITS = "UPDATE endpoint_hit_totals " +
+            "SET unique_hits = :uniqueHits, updated_at = clock_timestamp() " +
+            "WHERE uri = :uri AND app = :app AND unique_hits < :uniqueHits";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Recounts the hits of every app and uri rolled up in the hours {@code [from, to)}.
+     */
+    public void refreshHits(LocalDateTime from, LocalDateTime to) {
+        jdbcTemplate.update(REFRESH_HITS, new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to)));
+    }
+
+    /**
+     * Stores estimated unique visitors. Until {@code sketchesComplete}, sketches miss the oldest hours, so an
+     * estimate only replaces a lower count.
+     */
+    public void updateUniqueHits(Map<AppUri, Long> estimates, boolean sketchesComplete) {
+        SqlParameterSource[] params = estimates.entrySet()
+                .stream()
+                .sorted(Map.Entry.comparingByKey(Comparator.comparing(AppUri::getUri)
+                        .thenComparing(AppUri::getApp)))
+                .map(entry -> new MapSqlParameterSource()
+                        .addValue("app", entry.getKey().getApp())
+                        .addValue("uri", entry.getKey().getUri())
+                        .addValue("uniqueHits", entry.getValue()))
+                .toArray(SqlParameterSource[]::new);
+
+        jdbcTemplate.batchUpdate(sketchesComplete ? SET_UNIQUE_HITS : RAISE_UNIQUE_HITS, params);
+    }
+
+    /**
+     * Returns counters of the given uris (all uris when empty) that changed at or after {@code since}
+     * (any time when {@code null}).
+     */
+    public List<StatHits> findTotals(List<String> uris, boolean unique, LocalDateTime since) {
+        String column = unique ? "unique_hits" : "hits";
+        List<String> filters = new ArrayList<>();
+        MapSqlParameterSource params = new MapSqlParameterSource("uris", uris);
+
+        if (!uris.isEmpty()) {
+            filters.add("uri IN (:uris)");
+        }
+        if (since != null) {
+            filters.add("updated_at >= :since");
+            params.addValue("since", Timestamp.valueOf(since));
+        }
+
+        String where = filters.isEmpty() ? "" : " WHERE " + String.join(" AND ", filters);
+
+        return jdbcTemplate.query("SELECT app, uri, " + column + " AS hits FROM endpoint_hit_totals" + where +
+                        " ORDER BY hits DESC", params,
+                (rs, rowNum) -> new StatHits(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+    }
+}
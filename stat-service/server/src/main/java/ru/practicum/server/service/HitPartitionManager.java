@@ -0,0 +1,196 @@
+package ru.practicum.server.service;
+
+import lombok.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.server.model.RollupGranularity;
+
+import java.sql.Timestamp;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Partitioned storage mode for {@code endpoint_hits}: range partitions on {@code timestamp} per day or month.
+ * On the first run the plain table from schema.sql is converted in place. Afterwards partitions for the next
+ * {@code premake} intervals are created ahead of time, and whole partitions older than {@code retention-days}
+ * are dropped instead of deleting rows. Hits outside all partitions land in {@code endpoint_hits_default}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.partitioning.enabled", havingValue = "true")
+public class HitPartitionManager {
+    private static final String TABLE = "endpoint_hits";
+    private static final String STAGING_TABLE = "endpoint_hits_partitioned";
+    private static final String DEFAULT_PARTITION = "endpoint_hits_default";
+    private static final String PARTITION_PREFIX = "endpoint_hits_p";
+    private static final long LOCK_ID = 0x656e6470L;
+    private static final DateTimeFormatter DAY_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter MONTH_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final DateTimeFormatter BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RollupGranularity interval;
+    private final int premake;
+    private final int retentionDays;
+
+    public HitPartitionManager(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                               @Value("${stats.partitioning.interval:MONTH}") RollupGranularity interval,
+                               @Value("${stats.partitioning.premake:3}") int premake,
+                               @Value("${stats.retention.days:0}") int retentionDays) {
+        if (interval != RollupGranularity.DAY && interval != RollupGranularity.MONTH) {
+            throw new IllegalArgumentException("Partition interval must be DAY or MONTH");
+        }
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.interval = interval;
+        this.premake = premake;
+        this.retentionDays = retentionDays;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${stats.partitioning.cron:0 5 0 * * *}")
+    public void maintainPartitions() {
+        transactionTemplate.executeWithoutResult(status -> {
+            // Several server instances may run this at once
+            jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + LOCK_ID + ")");
+
+            if (!isPartitioned()) {
+                convertToPartitioned();
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            createPartitions(TABLE, interval.floor(now), interval.floor(now).plus(premake, interval.getUnit()));
+            dropExpiredPartitions(now);
+        });
+    }
+
+    private boolean isPartitioned() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = CAST(? AS regclass))",
+                Boolean.class, TABLE));
+    }
+
+    private void convertToPartitioned() {
+        log.info("Converting {} to {} range partitions", TABLE, interval);
+        // The advisory lock only serializes the managers; this one holds back /hit writers until the old table
+        // is dropped, so no hit is committed after the copy and the sequence starts above every copied id
+        jdbcTemplate.execute("LOCK TABLE " + TABLE + " IN EXCLUSIVE MODE");
+        Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(timestamp) FROM " + TABLE, Timestamp.class);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime from = interval.floor(oldest == null ? now : oldest.toLocalDateTime());
+
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS endpoint_hits_partitioned_id_seq");
+        jdbcTemplate.execute("CREATE TABLE " + STAGING_TABLE + " (" +
+                "id BIGINT NOT NULL DEFAULT nextval('endpoint_hits_partitioned_id_seq'), " +
+                "app VARCHAR(127) NOT NULL, " +
+                "uri VARCHAR(512) NOT NULL, " +
+                "ip VARCHAR(15) NOT NULL, " +
+                "timestamp TIMESTAMP WITHOUT TIME ZONE NOT NULL, " +
+                "PRIMARY KEY (id, timestamp)) PARTITION BY RANGE (timestamp)");
+        jdbcTemplate.execute("CREATE TABLE " + DEFAULT_PARTITION + " PARTITION OF " + STAGING_TABLE + " DEFAULT");
+        createPartitions(STAGING_TABLE, from, interval.floor(now).plus(premake, interval.getUnit()));
+
+        jdbcTemplate.execute("INSERT INTO " + STAGING_TABLE + " (id, app, uri, ip, timestamp) " +
+                "SELECT id, app, uri, ip, timestamp FROM " + TABLE);
+        jdbcTemplate.execute("SELECT setval('endpoint_hits_partitioned_id_seq', COALESCE(MAX(id), 0) + 1, false) " +
+                "FROM " + TABLE);
+        jdbcTemplate.execute("DROP TABLE " + TABLE);
+        jdbcTemplate.execute("ALTER TABLE " + STAGING_TABLE + " RENAME TO " + TABLE);
+        jdbcTemplate.execute("ALTER SEQUENCE endpoint_hits_partitioned_id_seq OWNED BY " + TABLE + ".id");
+        jdbcTemplate.execute("CREATE INDEX endpoint_hits_uri_timestamp_idx ON " + TABLE + " (uri, timestamp)");
+        jdbcTemplate.execute("CREATE INDEX endpoint_hits_timestamp_idx ON " + TABLE + " (timestamp)");
+    }
+
+    private void createPartitions(String parent, LocalDateTime from, LocalDateTime to) {
+        List<PartitionRange> existing = findPartitions(parent);
+
+        for (LocalDateTime start = from; !start.isAfter(to); start = start.plus(1, interval.getUnit())) {
+            LocalDateTime end = start.plus(1, interval.getUnit());
+            PartitionRange range = new PartitionRange(partitionName(start), start, end);
+
+            if (existing.stream().noneMatch(partition -> partition.overlaps(range))) {
+                createPartition(parent, range);
+            }
+        }
+    }
+
+    // Rows that already landed in the default partition are moved before the range is attached
+    private void createPartition(String parent, PartitionRange range) {
+        Timestamp start = Timestamp.valueOf(range.getStart());
+        Timestamp end = Timestamp.valueOf(range.getEnd());
+
+        jdbcTemplate.execute("CREATE TABLE " + range.getName() + " (LIKE " + parent + " INCLUDING DEFAULTS)");
+        jdbcTemplate.update("INSERT INTO " + range.getName() + " (id, app, uri, ip, timestamp) " +
+                "SELECT id, app, uri, ip, timestamp FROM " + DEFAULT_PARTITION + " " +
+                "WHERE timestamp >= ? AND timestamp < ?", start, end);
+        jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE timestamp >= ? AND timestamp < ?", start, end);
+        jdbcTemplate.execute(String.format("ALTER TABLE %s ATTACH PARTITION %s FOR VALUES FROM ('%s') TO ('%s')",
+                parent, range.getName(), BOUND.format(range.getStart()), BOUND.format(range.getEnd())));
+        log.info("Created partition {}", range.getName());
+    }
+
+    private void dropExpiredPartitions(LocalDateTime now) {
+        if (retentionDays <= 0) {
+            return;
+        }
+
+        LocalDateTime cutoff = now.minusDays(retentionDays);
+        for (PartitionRange partition : findPartitions(TABLE)) {
+            if (!partition.getEnd().isAfter(cutoff)) {
+                jdbcTemplate.execute("DROP TABLE " + partition.getName());
+                log.info("Dropped expired partition {}", partition.getName());
+            }
+        }
+
+        jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE timestamp < ?", Timestamp.valueOf(cutoff));
+    }
+
+    private List<PartitionRange> findPartitions(String parent) {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = CAST(? AS regclass)", String.class, parent)
+                .stream()
+                .filter(name -> name.startsWith(PARTITION_PREFIX))
+                .map(HitPartitionManager::parsePartitionName)
+                .collect(Collectors.toList());
+    }
+
+    private String partitionName(LocalDateTime start) {
+        return PARTITION_PREFIX + (interval == RollupGranularity.DAY ? DAY_SUFFIX : MONTH_SUFFIX).format(start);
+    }
+
+    // Partitions of both intervals are recognised, so switching the interval never creates overlapping ranges
+    private static PartitionRange parsePartitionName(String name) {
+        String suffix = name.substring(PARTITION_PREFIX.length());
+
+        if (suffix.length() == 8) {
+            LocalDateTime start = LocalDate.parse(suffix, DAY_SUFFIX).atStartOfDay();
+            return new PartitionRange(name, start, start.plusDays(1));
+        }
+
+        LocalDateTime start = YearMonth.parse(suffix, MONTH_SUFFIX).atDay(1).atStartOfDay();
+        return new PartitionRange(name, start, start.plusMonths(1));
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class PartitionRange {
+        private final String name;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+
+        boolean overlaps(PartitionRange other) {
+            return start.isBefore(other.end) && other.start.isBefore(end);
+        }
+    }
+}
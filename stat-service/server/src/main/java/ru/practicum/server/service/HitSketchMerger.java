@@ -0,0 +1,108 @@
+package ru.practicum.server.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.server.model.*;
+import ru.practicum.server.repository.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Builds the HyperLogLog sketches, the hit rollups and the lifetime counters off the hit path. Each run rebuilds the hours that ended
+ * since the previous run, plus the last {@code late-hours} to pick up late hits and the hour in progress, and
+ * backfills up to {@code backfill-hours} older hours until the oldest stored hit is reached. The range of ended
+ * hours is kept in {@code endpoint_hits_hll_coverage}; queries read later hours raw. Hits arriving more than
+ * {@code late-hours} after their timestamp are stored but not aggregated.
+ */
+@Slf4j
+@Component
+public class HitSketchMerger {
+    private static final long LOCK_ID = 0x686c6cL;
+
+    private final StatsSketchRepository statsSketchRepository;
+    private final StatsRollupRepository statsRollupRepository;
+    private final StatsTotalsRepository statsTotalsRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int lateHours;
+    private final int backfillHours;
+
+    public HitSketchMerger(StatsSketchRepository statsSketchRepository,
+                           StatsRollupRepository statsRollupRepository,
+                           StatsTotalsRepository statsTotalsRepository, JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${stats.sketch.late-hours:1}") int lateHours,
+                           @Value("${stats.sketch.backfill-hours:24}") int backfillHours) {
+        this.statsSketchRepository = statsSketchRepository;
+        this.statsRollupRepository = statsRollupRepository;
+        this.statsTotalsRepository = statsTotalsRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.lateHours = lateHours;
+        this.backfillHours = backfillHours;
+    }
+
+    @Scheduled(fixedDelayString = "${stats.sketch.merge-interval-ms:300000}",
+            initialDelayString = "${stats.sketch.initial-delay-ms:10000}")
+    public void merge() {
+        transactionTemplate.executeWithoutResult(status -> {
+            // Another server instance is already merging
+            if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(" + LOCK_ID + ")",
+                    Boolean.class))) {
+                return;
+            }
+
+            LocalDateTime now = RollupGranularity.HOUR.floor(LocalDateTime.now());
+            SketchCoverage coverage = statsSketchRepository.findCoverage()
+                    .orElse(new SketchCoverage(now, now, false));
+
+            LocalDateTime forwardFrom = coverage.getUntil().minusHours(lateHours);
+            // The hour in progress too, so rollups and counters lag by one run at most; it stays outside the coverage
+            LocalDateTime forwardTo = now.plusHours(1);
+            rebuild(forwardFrom, forwardTo);
+            LocalDateTime from = forwardFrom.isBefore(coverage.getFrom()) ? forwardFrom : coverage.getFrom();
+            boolean backfilled = coverage.isBackfilled();
+
+            if (!backfilled) {
+                LocalDateTime oldest = statsSketchRepository.findOldestHit()
+                        .map(RollupGranularity.HOUR::floor)
+                        .orElse(from);
+                LocalDateTime backfillFrom = from.minusHours(backfillHours);
+                if (!backfillFrom.isAfter(oldest)) {
+                    backfillFrom = oldest;
+                    backfilled = true;
+                }
+
+                rebuild(backfillFrom, from);
+                refreshTotals(backfillFrom, from, backfilled);
+                from = backfillFrom.isBefore(from) ? backfillFrom : from;
+            }
+
+            refreshTotals(forwardFrom, forwardTo, backfilled);
+
+            statsSketchRepository.saveCoverage(new SketchCoverage(from, now, backfilled));
+            log.debug("Sketches cover [{}, {}), backfilled: {}", from, now, backfilled);
+        });
+    }
+
+    private void rebuild(LocalDateTime from, LocalDateTime to) {
+        for (LocalDateTime hour = from; hour.isBefore(to); hour = hour.plusHours(1)) {
+            statsSketchRepository.rebuildHour(hour);
+        }
+        if (from.isBefore(to)) {
+            statsRollupRepository.rebuild(from, to);
+        }
+    }
+
+    private void refreshTotals(LocalDateTime from, LocalDateTime to, boolean backfilled) {
+        if (from.isBefore(to)) {
+            statsTotalsRepository.refreshHits(from, to);
+            statsTotalsRepository.updateUniqueHits(statsSketchRepository.estimateLifetimeUniqueHits(from, to),
+                    backfilled);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package ru.practicum.server.service;
+
+import io.micrometer.core.instrument.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.server.model.EndpointHit;
+
+import javax.annotation.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Opt-in write-behind mode for {@code POST /hit}: hits are queued in memory and a background
+ * thread stores them in batches once {@code batch-size} hits are collected or {@code flush-interval-ms}
+ * has passed. Hits offered to a full queue are dropped and counted.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.write-behind.enabled", havingValue = "true")
+public class HitWriteBehindBuffer {
+    private final BlockingQueue<EndpointHit> queue;
+    private final HitWriter hitWriter;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final Counter droppedHits;
+    private final Counter flushedHits;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public HitWriteBehindBuffer(HitWriter hitWriter, MeterRegistry meterRegistry,
+                                @Value("${stats.write-behind.capacity:10000}") int capacity,
+                                @Value("${stats.write-behind.batch-size:500}") int batchSize,
+                                @Value("${stats.write-behind.flush-interval-ms:1000}") long flushIntervalMs) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.hitWriter = hitWriter;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.droppedHits = meterRegistry.counter("stats.hits.buffer.dropped");
+        this.flushedHits = meterRegistry.counter("stats.hits.buffer.flushed");
+        Gauge.builder("stats.hits.buffer.depth", queue, Collection::size)
+                .register(meterRegistry);
+
+        flusher = new Thread(this::flushLoop, "hit-write-behind");
+        flusher.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher.start();
+    }
+
+    public void offer(EndpointHit hit) {
+        if (!queue.offer(hit)) {
+            droppedHits.increment();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        flusher.join(flushIntervalMs * 2);
+
+        List<EndpointHit> rest = new ArrayList<>(batchSize);
+        while (queue.drainTo(rest, batchSize) > 0) {
+            flush(rest);
+        }
+    }
+
+    private void flushLoop() {
+        List<EndpointHit> batch = new ArrayList<>(batchSize);
+        long deadline = System.currentTimeMillis() + flushIntervalMs;
+
+        while (running) {
+            try {
+                long wait = Math.max(deadline - System.currentTimeMillis(), 0);
+                EndpointHit hit = queue.poll(wait, TimeUnit.MILLISECONDS);
+                if (hit != null) {
+                    batch.add(hit);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            if (batch.size() >= batchSize || System.currentTimeMillis() >= deadline) {
+                flush(batch);
+                deadline = System.currentTimeMillis() + flushIntervalMs;
+            }
+        }
+
+        flush(batch);
+    }
+
+    private void flush(List<EndpointHit> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            hitWriter.write(batch);
+            flushedHits.increment(batch.size());
+        } catch (RuntimeException e) {
+            log.error("Failed to flush {} hits: {}", batch.size(), e.getMessage());
+            droppedHits.increment(batch.size());
+        }
+        batch.clear();
+    }
+}
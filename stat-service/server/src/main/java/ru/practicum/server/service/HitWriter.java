@@ -0,0 +1,24 @@
+package ru.practicum.server.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.server.model.EndpointHit;
+import ru.practicum.server.repository.StatsServerRepository;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+public class HitWriter {
+    private final StatsServerRepository statsServerRepository;
+
+    @Transactional
+    public void write(List<EndpointHit> hits) {
+        if (hits.isEmpty()) {
+            return;
+        }
+
+        statsServerRepository.saveAllInBatch(hits);
+    }
+}
@@ -8,5 +8,10 @@ import java.util.List;
 public interface StatsService {
     void addHit(EndpointHitRequestDto requestDto);
 
-    List<StatResponseDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique);
+    void addHits(List<EndpointHitRequestDto> requestDtos);
+
+    List<StatResponseDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                                   boolean approx);
+
+    List<StatResponseDto> getTotals(List<String> uris, boolean unique, LocalDateTime since);
 }
@@ -5,10 +5,11 @@ import org.springframework.stereotype.Service;
 import ru.practicum.dto.*;
 import ru.practicum.server.mapper.StatsServerMapper;
 import ru.practicum.server.model.*;
-import ru.practicum.server.repository.StatsServerRepository;
+import ru.practicum.server.repository.*;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -16,22 +17,73 @@ public class StatsServiceImpl implements StatsService {
     @Autowired
     private StatsServerRepository statsServerRepository;
 
+    @Autowired
+    private StatsRollupRepository statsRollupRepository;
+
+    @Autowired
+    private StatsSketchRepository statsSketchRepository;
+
+    @Autowired
+    private StatsTotalsRepository statsTotalsRepository;
+
+    @Autowired
+    private HitWriter hitWriter;
+
+    @Autowired(required = false)
+    private HitWriteBehindBuffer hitWriteBehindBuffer;
+
     @Override
     public void addHit(EndpointHitRequestDto requestDto) {
         EndpointHit endpointHit = StatsServerMapper.toEndpointHit(requestDto);
-        statsServerRepository.save(endpointHit);
+
+        if (hitWriteBehindBuffer != null) {
+            hitWriteBehindBuffer.offer(endpointHit);
+        } else {
+            hitWriter.write(List.of(endpointHit));
+        }
     }
 
     @Override
-    public List<StatResponseDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+    public void addHits(List<EndpointHitRequestDto> requestDtos) {
+        List<EndpointHit> endpointHits = requestDtos.stream()
+                .map(StatsServerMapper::toEndpointHit)
+                .collect(Collectors.toList());
+        hitWriter.write(endpointHits);
+    }
+
+    @Override
+    public List<StatResponseDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                                          boolean approx) {
         List<StatHits> stats;
+        // Sketches are built off the hit path; a range older than what they cover so far would be undercounted,
+        // so it is counted exactly instead
+        Optional<SketchCoverage> coverage = unique && approx
+                ? statsSketchRepository.findCoverage()
+                .filter(sketched -> sketched.covers(start))
+                : Optional.empty();
 
-        if (unique) {
+        // Hits are stored with second precision, so [start, end + 1s) equals BETWEEN start AND end
+        if (coverage.isPresent()) {
+            stats = statsSketchRepository.findUniqueStats(start, end.plusSeconds(1), uris, coverage.get()
+                    .getUntil());
+        } else if (unique) {
             stats = statsServerRepository.findUniqueStatsWithUris(start, end, uris);
         } else {
-            stats = statsServerRepository.findAllStatsWithUris(start, end, uris);
+            // Rollups are built off the hit path together with the sketches; later hours are counted raw
+            LocalDateTime rolledUntil = statsSketchRepository.findCoverage()
+                    .map(SketchCoverage::getUntil)
+                    .orElse(start);
+            stats = statsRollupRepository.findAllStats(start, end.plusSeconds(1), uris, rolledUntil);
         }
 
         return stats.stream().map(StatsServerMapper::toStatResponseDto).collect(Collectors.toList());
     }
-}
\ No newline at end of file
+
+    @Override
+    public List<StatResponseDto> getTotals(List<String> uris, boolean unique, LocalDateTime since) {
+        return statsTotalsRepository.findTotals(uris, unique, since)
+                .stream()
+                .map(StatsServerMapper::toStatResponseDto)
+                .collect(Collectors.toList());
+    }
+}
@@ -5,4 +5,139 @@ CREATE TABLE IF NOT EXISTS endpoint_hits
     uri       VARCHAR(512) NOT NULL,
     ip        VARCHAR(15) NOT NULL,
     timestamp TIMESTAMP WITHOUT TIME ZONE NOT NULL
-);
\ No newline at end of file
+);
+
+CREATE INDEX IF NOT EXISTS endpoint_hits_uri_timestamp_idx ON endpoint_hits (uri, timestamp);
+CREATE INDEX IF NOT EXISTS endpoint_hits_timestamp_idx ON endpoint_hits (timestamp);
+
+CREATE TABLE IF NOT EXISTS endpoint_hits_minute
+(
+    app    VARCHAR(127) NOT NULL,
+    uri    VARCHAR(512) NOT NULL,
+    bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    hits   BIGINT NOT NULL,
+    PRIMARY KEY (uri, bucket, app)
+);
+
+CREATE TABLE IF NOT EXISTS endpoint_hits_hour
+(
+    app    VARCHAR(127) NOT NULL,
+    uri    VARCHAR(512) NOT NULL,
+    bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    hits   BIGINT NOT NULL,
+    PRIMARY KEY (uri, bucket, app)
+);
+
+CREATE TABLE IF NOT EXISTS endpoint_hits_day
+(
+    app    VARCHAR(127) NOT NULL,
+    uri    VARCHAR(512) NOT NULL,
+    bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    hits   BIGINT NOT NULL,
+    PRIMARY KEY (uri, bucket, app)
+);
+
+CREATE TABLE IF NOT EXISTS endpoint_hits_month
+(
+    app    VARCHAR(127) NOT NULL,
+    uri    VARCHAR(512) NOT NULL,
+    bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    hits   BIGINT NOT NULL,
+    PRIMARY KEY (uri, bucket, app)
+);
+
+CREATE INDEX IF NOT EXISTS endpoint_hits_minute_bucket_idx ON endpoint_hits_minute (bucket);
+CREATE INDEX IF NOT EXISTS endpoint_hits_hour_bucket_idx ON endpoint_hits_hour (bucket);
+CREATE INDEX IF NOT EXISTS endpoint_hits_day_bucket_idx ON endpoint_hits_day (bucket);
+CREATE INDEX IF NOT EXISTS endpoint_hits_month_bucket_idx ON endpoint_hits_month (bucket);
+
+-- Backfill rollups once from hits stored before the rollup tables existed
+INSERT INTO endpoint_hits_minute (app, uri, bucket, hits)
+SELECT app, uri, date_trunc('minute', timestamp), COUNT(*)
+FROM endpoint_hits
+WHERE NOT EXISTS (SELECT 1 FROM endpoint_hits_minute)
+GROUP BY app, uri, date_trunc('minute', timestamp);
+
+INSERT INTO endpoint_hits_hour (app, uri, bucket, hits)
+SELECT app, uri, date_trunc('hour', timestamp), COUNT(*)
+FROM endpoint_hits
+WHERE NOT EXISTS (SELECT 1 FROM endpoint_hits_hour)
+GROUP BY app, uri, date_trunc('hour', timestamp);
+
+INSERT INTO endpoint_hits_day (app, uri, bucket, hits)
+SELECT app, uri, date_trunc('day', timestamp), COUNT(*)
+FROM endpoint_hits
+WHERE NOT EXISTS (SELECT 1 FROM endpoint_hits_day)
+GROUP BY app, uri, date_trunc('day', timestamp);
+
+INSERT INTO endpoint_hits_month (app, uri, bucket, hits)
+SELECT app, uri, date_trunc('month', timestamp), COUNT(*)
+FROM endpoint_hits
+WHERE NOT EXISTS (SELECT 1 FROM endpoint_hits_month)
+GROUP BY app, uri, date_trunc('month', timestamp);
+
+-- HyperLogLog sketches of visitor IPs, see ru.practicum.server.sketch.HyperLogLog for the format
+CREATE TABLE IF NOT EXISTS endpoint_hits_hll_hour
+(
+    app       VARCHAR(127) NOT NULL,
+    uri       VARCHAR(512) NOT NULL,
+    bucket    TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    registers BYTEA NOT NULL,
+    PRIMARY KEY (uri, bucket, app)
+);
+
+CREATE TABLE IF NOT EXISTS endpoint_hits_hll_day
+(
+    app       VARCHAR(127) NOT NULL,
+    uri       VARCHAR(512) NOT NULL,
+    bucket    TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    registers BYTEA NOT NULL,
+    PRIMARY KEY (uri, bucket, app)
+);
+
+CREATE TABLE IF NOT EXISTS endpoint_hits_hll_month
+(
+    app       VARCHAR(127) NOT NULL,
+    uri       VARCHAR(512) NOT NULL,
+    bucket    TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    registers BYTEA NOT NULL,
+    PRIMARY KEY (uri, bucket, app)
+);
+
+CREATE INDEX IF NOT EXISTS endpoint_hits_hll_hour_bucket_idx ON endpoint_hits_hll_hour (bucket);
+CREATE INDEX IF NOT EXISTS endpoint_hits_hll_day_bucket_idx ON endpoint_hits_hll_day (bucket);
+CREATE INDEX IF NOT EXISTS endpoint_hits_hll_month_bucket_idx ON endpoint_hits_hll_month (bucket);
+
+-- Hours sketched and rolled up so far by HitSketchMerger, a single row
+CREATE TABLE IF NOT EXISTS endpoint_hits_hll_coverage
+(
+    id            INTEGER PRIMARY KEY CHECK (id = 1),
+    covered_from  TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    covered_until TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    backfilled    BOOLEAN NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS endpoint_hit_totals
+(
+    app         VARCHAR(127) NOT NULL,
+    uri         VARCHAR(512) NOT NULL,
+    hits        BIGINT NOT NULL,
+    unique_hits BIGINT NOT NULL,
+    updated_at  TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT now(),
+    PRIMARY KEY (uri, app)
+);
+
+ALTER TABLE endpoint_hit_totals
+    ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT now();
+
+CREATE INDEX IF NOT EXISTS endpoint_hit_totals_updated_at_idx ON endpoint_hit_totals (updated_at);
+
+-- Unique counters are estimated from the sketches now; the exact visitor set grew without bound
+DROP TABLE IF EXISTS endpoint_hit_visitors;
+
+-- Backfill lifetime counters once from hits stored before the counters existed
+INSERT INTO endpoint_hit_totals (app, uri, hits, unique_hits)
+SELECT app, uri, COUNT(*), COUNT(DISTINCT ip)
+FROM endpoint_hits
+WHERE NOT EXISTS (SELECT 1 FROM endpoint_hit_totals)
+GROUP BY app, uri;
@@ -0,0 +1,57 @@
+package ru.practicum.server.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.server.service.StatsService;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(StatServerController.class)
+class StatServerControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private StatsService statsService;
+
+    @Test
+    void emptyBatchIsRejected() throws Exception {
+        postBatch("[]");
+
+        verify(statsService, never()).addHits(anyList());
+    }
+
+    @Test
+    void batchWithInvalidHitIsRejected() throws Exception {
+        postBatch("[{\"app\":\"ewm-main-service\",\"uri\":\"/events/1\",\"ip\":\"192.163.0.1\"," +
+                "\"timestamp\":\"2022-09-06 11:00:23\"},{\"app\":\"ewm-main-service\",\"uri\":\"\",\"ip\":\"\"}]");
+
+        verify(statsService, never()).addHits(anyList());
+    }
+
+    @Test
+    void validBatchIsAccepted() throws Exception {
+        mockMvc.perform(post("/hits/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"app\":\"ewm-main-service\",\"uri\":\"/events/1\",\"ip\":\"192.163.0.1\"," +
+                                "\"timestamp\":\"2022-09-06 11:00:23\"}]"))
+                .andExpect(status().isCreated());
+
+        verify(statsService).addHits(anyList());
+    }
+
+    private void postBatch(String body) throws Exception {
+        mockMvc.perform(post("/hits/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,108 @@
+package ru.practicum.server.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.practicum.server.model.RollupGranularity.*;
+
+class RollupGranularityTest {
+    private static final List<RollupGranularity> ALL = List.of(MONTH, DAY, HOUR, MINUTE);
+
+    @Test
+    void floorAndCeilKeepBucketEdges() {
+        LocalDateTime hour = LocalDateTime.of(2024, 3, 10, 14, 0);
+
+        assertThat(HOUR.floor(hour)).isEqualTo(hour);
+        assertThat(HOUR.ceil(hour)).isEqualTo(hour);
+        assertThat(HOUR.floor(hour.plusSeconds(1))).isEqualTo(hour);
+        assertThat(HOUR.ceil(hour.plusSeconds(1))).isEqualTo(hour.plusHours(1));
+    }
+
+    @Test
+    void monthBucketsFollowCalendarMonths() {
+        assertThat(MONTH.floor(LocalDateTime.of(2024, 2, 29, 12, 0))).isEqualTo(LocalDateTime.of(2024, 2, 1, 0, 0));
+        assertThat(MONTH.ceil(LocalDateTime.of(2024, 2, 29, 12, 0))).isEqualTo(LocalDateTime.of(2024, 3, 1, 0, 0));
+        assertThat(MONTH.ceil(LocalDateTime.of(2023, 12, 1, 0, 1))).isEqualTo(LocalDateTime.of(2024, 1, 1, 0, 0));
+        assertThat(MONTH.ceil(LocalDateTime.of(2024, 1, 1, 0, 0))).isEqualTo(LocalDateTime.of(2024, 1, 1, 0, 0));
+    }
+
+    @Test
+    void wholeMonthsAreOneRange() {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+        assertThat(RollupGranularity.cover(from, to, ALL)).containsExactly(new BucketRange(MONTH, from, to));
+    }
+
+    @Test
+    void partialRangeIsCoveredByCoarsestBucketsAndRawEdges() {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 31, 23, 59, 30);
+        LocalDateTime to = LocalDateTime.of(2024, 3, 2, 0, 1);
+
+        List<BucketRange> ranges = RollupGranularity.cover(from, to, ALL);
+
+        assertThat(ranges).containsExactlyInAnyOrder(
+                new BucketRange(null, from, LocalDateTime.of(2024, 2, 1, 0, 0)),
+                new BucketRange(MONTH, LocalDateTime.of(2024, 2, 1, 0, 0), LocalDateTime.of(2024, 3, 1, 0, 0)),
+                new BucketRange(DAY, LocalDateTime.of(2024, 3, 1, 0, 0), LocalDateTime.of(2024, 3, 2, 0, 0)),
+                new BucketRange(MINUTE, LocalDateTime.of(2024, 3, 2, 0, 0), to));
+        assertContiguous(ranges, from, to);
+    }
+
+    @Test
+    void rangesAcrossYearEndAreContiguous() {
+        LocalDateTime from = LocalDateTime.of(2023, 11, 15, 7, 42, 13);
+        LocalDateTime to = LocalDateTime.of(2024, 2, 3, 18, 5, 59);
+
+        List<BucketRange> ranges = RollupGranularity.cover(from, to, ALL);
+
+        assertThat(ranges).contains(new BucketRange(MONTH, LocalDateTime.of(2023, 12, 1, 0, 0),
+                LocalDateTime.of(2024, 2, 1, 0, 0)));
+        assertContiguous(ranges, from, to);
+    }
+
+    @Test
+    void rangeWithinOneMinuteIsRaw() {
+        LocalDateTime from = LocalDateTime.of(2024, 3, 10, 14, 0, 5);
+        LocalDateTime to = from.plusSeconds(30);
+
+        assertThat(RollupGranularity.cover(from, to, ALL)).containsExactly(new BucketRange(null, from, to));
+    }
+
+    @Test
+    void emptyRangeHasNoBuckets() {
+        LocalDateTime at = LocalDateTime.of(2024, 3, 10, 14, 0);
+
+        assertThat(RollupGranularity.cover(at, at, ALL)).isEmpty();
+    }
+
+    @Test
+    void edgesFinerThanTheFinestGranularityAreRaw() {
+        LocalDateTime from = LocalDateTime.of(2024, 3, 10, 10, 30);
+        LocalDateTime to = LocalDateTime.of(2024, 3, 10, 13, 15);
+
+        assertThat(RollupGranularity.cover(from, to, List.of(HOUR))).containsExactlyInAnyOrder(
+                new BucketRange(HOUR, LocalDateTime.of(2024, 3, 10, 11, 0), LocalDateTime.of(2024, 3, 10, 13, 0)),
+                new BucketRange(null, from, LocalDateTime.of(2024, 3, 10, 11, 0)),
+                new BucketRange(null, LocalDateTime.of(2024, 3, 10, 13, 0), to));
+    }
+
+    private static void assertContiguous(List<BucketRange> ranges, LocalDateTime from, LocalDateTime to) {
+        List<BucketRange> sorted = new ArrayList<>(ranges);
+        sorted.sort(Comparator.comparing(BucketRange::getFrom));
+
+        LocalDateTime next = from;
+        for (BucketRange range : sorted) {
+            assertThat(range.getFrom()).isEqualTo(next);
+            if (!range.isRaw()) {
+                assertThat(range.getGranularity().floor(range.getFrom())).isEqualTo(range.getFrom());
+                assertThat(range.getGranularity().floor(range.getTo())).isEqualTo(range.getTo());
+            }
+            next = range.getTo();
+        }
+        assertThat(next).isEqualTo(to);
+    }
+}
@@ -0,0 +1,62 @@
+package ru.practicum.server.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.*;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.server.model.*;
+import ru.practicum.server.repository.*;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StatsServiceImplTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2024, 3, 2, 0, 0);
+    private static final List<String> URIS = List.of("/events/1");
+
+    @Mock
+    private StatsServerRepository statsServerRepository;
+
+    @Mock
+    private StatsSketchRepository statsSketchRepository;
+
+    @InjectMocks
+    private StatsServiceImpl statsService;
+
+    @Test
+    void approxUniqueStatsUseSketchesWhenTheyCoverTheRange() {
+        when(statsSketchRepository.findCoverage())
+                .thenReturn(Optional.of(new SketchCoverage(START.minusDays(1), END, false)));
+        when(statsSketchRepository.findUniqueStats(START, END.plusSeconds(1), URIS, END))
+                .thenReturn(List.of(new StatHits("ewm-main-service", "/events/1", 3)));
+
+        assertThat(statsService.getStats(START, END, URIS, true, true)).hasSize(1);
+        verifyNoInteractions(statsServerRepository);
+    }
+
+    @Test
+    void approxUniqueStatsFallBackToExactCountsBeforeCoverage() {
+        when(statsSketchRepository.findCoverage())
+                .thenReturn(Optional.of(new SketchCoverage(START.plusHours(1), END, false)));
+        when(statsServerRepository.findUniqueStatsWithUris(START, END, URIS))
+                .thenReturn(List.of(new StatHits("ewm-main-service", "/events/1", 3)));
+
+        assertThat(statsService.getStats(START, END, URIS, true, true)).hasSize(1);
+        verify(statsSketchRepository, never()).findUniqueStats(any(), any(), any(), any());
+    }
+
+    @Test
+    void approxUniqueStatsFallBackToExactCountsWithoutSketches() {
+        when(statsSketchRepository.findCoverage()).thenReturn(Optional.empty());
+        when(statsServerRepository.findUniqueStatsWithUris(START, END, URIS)).thenReturn(List.of());
+
+        assertThat(statsService.getStats(START, END, URIS, true, true)).isEmpty();
+        verify(statsServerRepository).findUniqueStatsWithUris(START, END, URIS);
+    }
+}
@@ -0,0 +1,104 @@
+package ru.practicum.server.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class HyperLogLogTest {
+
+    @Test
+    void emptySketchEstimatesZero() {
+        assertThat(new HyperLogLog().estimate()).isZero();
+    }
+
+    @Test
+    void estimatesStayWithinThreeStandardErrors() {
+        for (int count : new int[]{100, 1_000, 10_000, 100_000, 1_000_000}) {
+            HyperLogLog sketch = sketchOf(0, count);
+
+            assertThat((double) sketch.estimate())
+                    .as("estimate of %d distinct values", count)
+                    .isCloseTo(count, withinPercentage(300 * HyperLogLog.STANDARD_ERROR));
+        }
+    }
+
+    @Test
+    void duplicatesDoNotChangeTheEstimate() {
+        HyperLogLog sketch = sketchOf(0, 5_000);
+        long estimate = sketch.estimate();
+
+        for (int i = 0; i < 5_000; i++) {
+            sketch.add(ip(i));
+        }
+
+        assertThat(sketch.estimate()).isEqualTo(estimate);
+    }
+
+    @Test
+    void sparseSketchRoundTrips() {
+        HyperLogLog sketch = sketchOf(0, 50);
+        byte[] bytes = sketch.toBytes();
+
+        assertThat(bytes).hasSizeLessThanOrEqualTo(1 + 50 * 3);
+        assertThat(HyperLogLog.fromBytes(bytes).toBytes()).isEqualTo(bytes);
+        assertThat(HyperLogLog.fromBytes(bytes).estimate()).isEqualTo(sketch.estimate());
+    }
+
+    @Test
+    void denseSketchRoundTrips() {
+        HyperLogLog sketch = sketchOf(0, 100_000);
+        byte[] bytes = sketch.toBytes();
+
+        assertThat(bytes).hasSize(1 + (1 << HyperLogLog.PRECISION));
+        assertThat(HyperLogLog.fromBytes(bytes).toBytes()).isEqualTo(bytes);
+        assertThat(HyperLogLog.fromBytes(bytes).estimate()).isEqualTo(sketch.estimate());
+    }
+
+    @Test
+    void missingBytesAreAnEmptySketch() {
+        assertThat(HyperLogLog.fromBytes(null).estimate()).isZero();
+        assertThat(HyperLogLog.fromBytes(new byte[0]).estimate()).isZero();
+    }
+
+    @Test
+    void unknownFormatIsRejected() {
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[]{7}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void mergeEqualsSketchOfTheUnion() {
+        HyperLogLog left = sketchOf(0, 30_000);
+        HyperLogLog right = sketchOf(20_000, 50_000);
+
+        left.merge(right);
+
+        assertThat(left.toBytes()).isEqualTo(sketchOf(0, 50_000).toBytes());
+        assertThat((double) left.estimate())
+                .isCloseTo(50_000, withinPercentage(300 * HyperLogLog.STANDARD_ERROR));
+    }
+
+    @Test
+    void mergeOfSparseAndDenseRoundTrips() {
+        HyperLogLog dense = HyperLogLog.fromBytes(sketchOf(0, 100_000).toBytes());
+        HyperLogLog sparse = HyperLogLog.fromBytes(sketchOf(200_000, 200_010).toBytes());
+
+        dense.merge(sparse);
+
+        assertThat(dense.toBytes()).isEqualTo(sketchOf(0, 100_000, 200_000, 200_010).toBytes());
+    }
+
+    private static HyperLogLog sketchOf(int... ranges) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int r = 0; r < ranges.length; r += 2) {
+            for (int i = ranges[r]; i < ranges[r + 1]; i++) {
+                sketch.add(ip(i));
+            }
+        }
+        return sketch;
+    }
+
+    private static String ip(int i) {
+        return "10." + (i >>> 16 & 0xff) + "." + (i >>> 8 & 0xff) + "." + (i & 0xff);
+    }
+}